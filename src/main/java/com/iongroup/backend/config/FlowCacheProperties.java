@@ -0,0 +1,148 @@
+package com.iongroup.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conversion cache settings shared by all backend instances (prefix "flow.cache").
+ */
+@Configuration
+@ConfigurationProperties(prefix = "flow.cache")
+public class FlowCacheProperties {
+
+    /**
+     * Cache conversion results at all.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Base URL other instances use to reach this one, e.g. http://localhost:8080.
+     */
+    private String selfUrl = "http://localhost:8080";
+
+    /**
+     * Base URLs of all instances in the cluster. May include selfUrl.
+     * Empty means a single, local-only cache.
+     */
+    private List<String> peers = new ArrayList<>();
+
+    /**
+     * Points per instance on the consistent hash ring.
+     */
+    private int virtualNodes = 100;
+
+    /**
+     * Entries kept in this instance's store before the least recently used is evicted.
+     */
+    private int maxLocalEntries = 1000;
+
+    /**
+     * Estimated size of this instance's store in bytes before the least recently used
+     * entries are evicted. Entries larger than this are not stored.
+     */
+    private long maxLocalBytes = 64L * 1024 * 1024;
+
+    /**
+     * Connect and read timeout for peer calls; slower peers count as missing.
+     */
+    private long peerTimeoutMillis = 500;
+
+    /**
+     * How long a peer that failed a call is skipped before it is tried again.
+     */
+    private long peerBackoffMillis = 5000;
+
+    /**
+     * Pushes to owning peers waiting to be sent; further pushes are dropped.
+     */
+    private int pushQueueSize = 100;
+
+    /**
+     * Secret shared by all instances; peer calls must present it and exchanged
+     * entries are signed with it. Blank disables peer calls in both directions.
+     */
+    private String sharedSecret = "";
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getSelfUrl() {
+        return selfUrl;
+    }
+
+    public void setSelfUrl(String selfUrl) {
+        this.selfUrl = selfUrl;
+    }
+
+    public List<String> getPeers() {
+        return peers;
+    }
+
+    public void setPeers(List<String> peers) {
+        this.peers = peers;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    public void setVirtualNodes(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+
+    public int getMaxLocalEntries() {
+        return maxLocalEntries;
+    }
+
+    public void setMaxLocalEntries(int maxLocalEntries) {
+        this.maxLocalEntries = maxLocalEntries;
+    }
+
+    public long getMaxLocalBytes() {
+        return maxLocalBytes;
+    }
+
+    public void setMaxLocalBytes(long maxLocalBytes) {
+        this.maxLocalBytes = maxLocalBytes;
+    }
+
+    public long getPeerTimeoutMillis() {
+        return peerTimeoutMillis;
+    }
+
+    public void setPeerTimeoutMillis(long peerTimeoutMillis) {
+        this.peerTimeoutMillis = peerTimeoutMillis;
+    }
+
+    public long getPeerBackoffMillis() {
+        return peerBackoffMillis;
+    }
+
+    public void setPeerBackoffMillis(long peerBackoffMillis) {
+        this.peerBackoffMillis = peerBackoffMillis;
+    }
+
+    public int getPushQueueSize() {
+        return pushQueueSize;
+    }
+
+    public void setPushQueueSize(int pushQueueSize) {
+        this.pushQueueSize = pushQueueSize;
+    }
+
+    public String getSharedSecret() {
+        return sharedSecret;
+    }
+
+    public void setSharedSecret(String sharedSecret) {
+        this.sharedSecret = sharedSecret;
+    }
+}
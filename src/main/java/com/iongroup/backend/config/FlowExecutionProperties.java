@@ -0,0 +1,130 @@
+package com.iongroup.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Execution settings for generated processes (prefix "flow.execution").
+ */
+@Configuration
+@ConfigurationProperties(prefix = "flow.execution")
+public class FlowExecutionProperties {
+
+    /**
+     * Run generated service tasks on the async executor by default.
+     */
+    private boolean async = false;
+
+    /**
+     * How long an async request waits for the process to finish before
+     * returning a RUNNING result. 0 returns immediately.
+     */
+    private long awaitCompletionMillis = 0;
+
+    /**
+     * Deployments remembered per conversion key before the least recently used
+     * is deleted from the engine; matches the conversion cache size. Also caps the
+     * engine's process definition cache.
+     */
+    private int maxDeployments = 1000;
+
+    private final AsyncExecutor asyncExecutor = new AsyncExecutor();
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public long getAwaitCompletionMillis() {
+        return awaitCompletionMillis;
+    }
+
+    public void setAwaitCompletionMillis(long awaitCompletionMillis) {
+        this.awaitCompletionMillis = awaitCompletionMillis;
+    }
+
+    public int getMaxDeployments() {
+        return maxDeployments;
+    }
+
+    public void setMaxDeployments(int maxDeployments) {
+        this.maxDeployments = maxDeployments;
+    }
+
+    public AsyncExecutor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * Flowable async executor worker pool and job acquisition settings.
+     */
+    public static class AsyncExecutor {
+        private int corePoolSize = 8;
+        private int maxPoolSize = 8;
+        private int queueSize = 100;
+        private int maxAsyncJobsDuePerAcquisition = 1;
+        private int maxTimerJobsPerAcquisition = 1;
+        private int defaultAsyncJobAcquireWaitTimeMillis = 10_000;
+        // Attempts before a failing async job is moved to the dead letter table
+        private int numberOfRetries = 3;
+
+        public int getCorePoolSize() {
+            return corePoolSize;
+        }
+
+        public void setCorePoolSize(int corePoolSize) {
+            this.corePoolSize = corePoolSize;
+        }
+
+        public int getMaxPoolSize() {
+            return maxPoolSize;
+        }
+
+        public void setMaxPoolSize(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public void setQueueSize(int queueSize) {
+            this.queueSize = queueSize;
+        }
+
+        public int getMaxAsyncJobsDuePerAcquisition() {
+            return maxAsyncJobsDuePerAcquisition;
+        }
+
+        public void setMaxAsyncJobsDuePerAcquisition(int maxAsyncJobsDuePerAcquisition) {
+            this.maxAsyncJobsDuePerAcquisition = maxAsyncJobsDuePerAcquisition;
+        }
+
+        public int getMaxTimerJobsPerAcquisition() {
+            return maxTimerJobsPerAcquisition;
+        }
+
+        public void setMaxTimerJobsPerAcquisition(int maxTimerJobsPerAcquisition) {
+            this.maxTimerJobsPerAcquisition = maxTimerJobsPerAcquisition;
+        }
+
+        public int getDefaultAsyncJobAcquireWaitTimeMillis() {
+            return defaultAsyncJobAcquireWaitTimeMillis;
+        }
+
+        public void setDefaultAsyncJobAcquireWaitTimeMillis(int defaultAsyncJobAcquireWaitTimeMillis) {
+            this.defaultAsyncJobAcquireWaitTimeMillis = defaultAsyncJobAcquireWaitTimeMillis;
+        }
+
+        public int getNumberOfRetries() {
+            return numberOfRetries;
+        }
+
+        public void setNumberOfRetries(int numberOfRetries) {
+            this.numberOfRetries = numberOfRetries;
+        }
+    }
+}
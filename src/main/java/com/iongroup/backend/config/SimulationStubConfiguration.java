@@ -0,0 +1,55 @@
+package com.iongroup.backend.config;
+
+import com.iongroup.backend.service.DelegateSimulationStub;
+import com.iongroup.backend.service.SimulationStub;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Simulation stubs for the sample operations registered in RegistryConfiguration.
+ * Each stub runs the operation's delegate from the adapter library in memory, so a
+ * simulated run ends with the same variables as the engine run, without deploying.
+ */
+@Configuration
+public class SimulationStubConfiguration {
+
+        @Bean
+        public SimulationStub startLoanApplicationStub() {
+                return new DelegateSimulationStub("StartLoanApplication");
+        }
+
+        @Bean
+        public SimulationStub startCardApplicationStub() {
+                return new DelegateSimulationStub("StartCardApplication");
+        }
+
+        @Bean
+        public SimulationStub checkEligibilityStub() {
+                return new DelegateSimulationStub("CheckEligibility");
+        }
+
+        @Bean
+        public SimulationStub getLoanPolicyStub() {
+                return new DelegateSimulationStub("GetLoanPolicy");
+        }
+
+        @Bean
+        public SimulationStub createLoanOfferStub() {
+                return new DelegateSimulationStub("CreateLoanOffer");
+        }
+
+        @Bean
+        public SimulationStub getAvailableCreditCardsStub() {
+                return new DelegateSimulationStub("GetAvailableCreditCards");
+        }
+
+        @Bean
+        public SimulationStub createCardOfferStub() {
+                return new DelegateSimulationStub("CreateCardOffer");
+        }
+
+        @Bean
+        public SimulationStub issueCreditCardStub() {
+                return new DelegateSimulationStub("IssueCreditCard");
+        }
+}
@@ -0,0 +1,96 @@
+package com.iongroup.backend.controller;
+
+import com.iongroup.backend.model.ConversionCacheEntry;
+import com.iongroup.backend.service.ConversionCache;
+import com.iongroup.backend.service.PeerConversionCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * REST Controller for the shared conversion cache.
+ * Serves authenticated peer lookups and pushes against this instance's store and
+ * reports hit rates. The peer endpoints answer 404 unless the configured cache
+ * is a single PeerConversionCache.
+ */
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    private final ConversionCache conversionCache;
+    private final ObjectProvider<PeerConversionCache> peerCache;
+
+    public CacheController(ConversionCache conversionCache, ObjectProvider<PeerConversionCache> peerCache) {
+        this.conversionCache = conversionCache;
+        this.peerCache = peerCache;
+    }
+
+    /**
+     * Peer lookup, only consults this instance's store. Requires the shared secret
+     * in the X-Flow-Cache-Token header.
+     * GET /api/cache/conversions/{key}
+     */
+    @GetMapping("/conversions/{key}")
+    public ResponseEntity<ConversionCacheEntry> getConversion(
+            @PathVariable String key,
+            @RequestHeader(name = PeerConversionCache.PEER_TOKEN_HEADER, required = false) String token) {
+        PeerConversionCache cache = peerCache.getIfUnique();
+        if (cache == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        if (!cache.isAuthorizedPeer(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        ConversionCacheEntry entry = cache.getForPeer(key);
+        if (entry == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(entry);
+    }
+
+    /**
+     * Peer push of a conversion this instance owns. Requires the shared secret in the
+     * X-Flow-Cache-Token header and an entry signed for the key.
+     * PUT /api/cache/conversions/{key}
+     */
+    @PutMapping("/conversions/{key}")
+    public ResponseEntity<Void> putConversion(
+            @PathVariable String key,
+            @RequestHeader(name = PeerConversionCache.PEER_TOKEN_HEADER, required = false) String token,
+            @RequestBody ConversionCacheEntry entry) {
+        PeerConversionCache cache = peerCache.getIfUnique();
+        if (cache == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        if (!cache.isAuthorizedPeer(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!cache.putFromPeer(key, entry)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * GET /api/cache/stats
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(conversionCache.getStats());
+    }
+
+    /**
+     * GET /api/cache/stats/cluster
+     */
+    @GetMapping("/stats/cluster")
+    public ResponseEntity<Map<String, Object>> getClusterStats() {
+        PeerConversionCache cache = peerCache.getIfUnique();
+        if (cache == null) {
+            return ResponseEntity.ok(conversionCache.getStats());
+        }
+        return ResponseEntity.ok(cache.getClusterStats());
+    }
+}
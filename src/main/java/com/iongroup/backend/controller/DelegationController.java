@@ -1,7 +1,11 @@
 package com.iongroup.backend.controller;
 
 import com.iongroup.backend.model.DelegationResponse;
+import com.iongroup.backend.model.OperationPlan;
+import com.iongroup.backend.model.OperationPlanRequest;
+import com.iongroup.backend.model.OperationPlanResponse;
 import com.iongroup.backend.service.DelegationService;
+import com.iongroup.backend.service.OperationPlannerService;
 import com.iongroup.library.registry.DelegationType;
 import com.iongroup.library.registry.OperationDescriptor;
 import org.springframework.http.HttpStatus;
@@ -9,6 +13,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * REST Controller for managing and retrieving delegation operations.
@@ -19,9 +24,12 @@ import java.util.List;
 public class DelegationController {
 
     private final DelegationService delegationService;
+    private final OperationPlannerService operationPlannerService;
 
-    public DelegationController(DelegationService delegationService) {
+    public DelegationController(DelegationService delegationService,
+                                OperationPlannerService operationPlannerService) {
         this.delegationService = delegationService;
+        this.operationPlannerService = operationPlannerService;
     }
 
     /**
@@ -167,4 +175,62 @@ public class DelegationController {
                     });
         }
     }
+
+    /**
+     * Plan the operation chain from available inputs to target outputs.
+     * Example:
+     * POST /api/delegations/plan
+     * { "availableInputs": ["customerId", "loanType"], "targetOutputs": ["loanOffer"], "includeUiGraph": true }
+     */
+    @PostMapping("/plan")
+    public ResponseEntity<OperationPlanResponse> planOperations(
+            @RequestBody OperationPlanRequest request) {
+
+        try {
+
+            if (request.getTargetOutputs() == null || request.getTargetOutputs().isEmpty()) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(new OperationPlanResponse(false, "targetOutputs must not be empty", null, null, null));
+            }
+
+            List<String> availableInputs = request.getAvailableInputs() != null
+                    ? request.getAvailableInputs()
+                    : List.of();
+            OperationPlan plan = operationPlannerService.plan(availableInputs, request.getTargetOutputs());
+
+            if (!plan.isResolved()) {
+                return ResponseEntity.ok(new OperationPlanResponse(
+                        false,
+                        "No operation chain produces " + request.getTargetOutputs() +
+                                ", missing inputs: " + plan.getMissingInputs(),
+                        null,
+                        plan.getMissingInputs(),
+                        null));
+            }
+
+            Map<String, Object> uiGraph = request.isIncludeUiGraph()
+                    ? operationPlannerService.toUiGraph(plan)
+                    : null;
+
+            OperationPlanResponse response = new OperationPlanResponse(
+                    true,
+                    "Planned " + plan.getOperations().size() + " operations",
+                    plan.getOperations(),
+                    plan.getMissingInputs(),
+                    uiGraph);
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+
+            OperationPlanResponse response = new OperationPlanResponse(
+                    false,
+                    "Error planning operations: " + e.getMessage(),
+                    null,
+                    null,
+                    null);
+
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
 }
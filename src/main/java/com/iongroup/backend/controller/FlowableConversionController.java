@@ -1,24 +1,20 @@
 package com.iongroup.backend.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iongroup.backend.config.FlowExecutionProperties;
+import com.iongroup.backend.model.ConversionCacheEntry;
 import com.iongroup.backend.model.FlowableConversionResponse;
+import com.iongroup.backend.profiling.StageProfiler;
+import com.iongroup.backend.service.ConversionCache;
+import com.iongroup.backend.service.FlowSimulationService;
+import com.iongroup.backend.service.FlowableExecutionService;
+import com.iongroup.backend.service.ServiceTaskEnrichmentService;
 import com.example.flow.UiToFlowableConverter;
 import com.example.flow.UiToFlowableConverter.ConverterConfig;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.flowable.bpmn.converter.BpmnXMLConverter;
 import org.flowable.bpmn.model.BpmnModel;
-import org.flowable.bpmn.model.ExtensionElement;
-import org.flowable.bpmn.model.ServiceTask;
 import org.flowable.editor.language.json.converter.BpmnJsonConverter;
-import org.flowable.engine.HistoryService;
-import org.flowable.engine.ProcessEngine;
-import org.flowable.engine.ProcessEngineConfiguration;
-import org.flowable.engine.RepositoryService;
-import org.flowable.engine.RuntimeService;
-import org.flowable.engine.repository.Deployment;
-import org.flowable.engine.runtime.ProcessInstance;
-import org.flowable.variable.api.history.HistoricVariableInstance;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -27,9 +23,12 @@ import org.springframework.web.bind.annotation.*;
 
 import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * REST Controller for converting UI flow graphs to BPMN and executing them
@@ -39,225 +38,266 @@ import java.util.Map;
 public class FlowableConversionController {
 
     private static final Logger logger = LoggerFactory.getLogger(FlowableConversionController.class);
+
+    // Flowable does not document its converters as thread-safe, so each request thread reuses its own
+    private static final ThreadLocal<BpmnJsonConverter> JSON_CONVERTER = ThreadLocal.withInitial(BpmnJsonConverter::new);
+    private static final ThreadLocal<BpmnXMLConverter> XML_CONVERTER = ThreadLocal.withInitial(BpmnXMLConverter::new);
+
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final FlowSimulationService flowSimulationService;
+    private final FlowableExecutionService flowableExecutionService;
+    private final FlowExecutionProperties executionProperties;
+    private final ConversionCache conversionCache;
+    private final ServiceTaskEnrichmentService serviceTaskEnrichmentService;
+
+    public FlowableConversionController(FlowSimulationService flowSimulationService,
+                                        FlowableExecutionService flowableExecutionService,
+                                        FlowExecutionProperties executionProperties,
+                                        ConversionCache conversionCache,
+                                        ServiceTaskEnrichmentService serviceTaskEnrichmentService) {
+        this.flowSimulationService = flowSimulationService;
+        this.flowableExecutionService = flowableExecutionService;
+        this.executionProperties = executionProperties;
+        this.conversionCache = conversionCache;
+        this.serviceTaskEnrichmentService = serviceTaskEnrichmentService;
+    }
 
     /**
      * Endpoint to convert UI JSON graph to BPMN and execute it
      * POST /api/flowable/convert-and-execute
+     * POST /api/flowable/convert-and-execute?simulate=true (dry run, no engine or database)
+     * POST /api/flowable/convert-and-execute?async=true (service tasks run on the async executor)
+     * POST /api/flowable/convert-and-execute?fields=bpmnXml,executionResult (only produce the listed parts)
+     * POST /api/flowable/convert-and-execute?explain=true (adds per-stage timings and allocations)
      * Request body: UI graph JSON
      */
     @PostMapping("/convert-and-execute")
     public ResponseEntity<FlowableConversionResponse> convertAndExecute(
-            @RequestBody Map<String, Object> uiJsonMap) {
+            @RequestBody Map<String, Object> uiJsonMap,
+            @RequestParam(name = "simulate", defaultValue = "false") boolean simulate,
+            @RequestParam(name = "async", required = false) Boolean async,
+            @RequestParam(name = "fields", required = false) String fields,
+            @RequestParam(name = "explain", defaultValue = "false") boolean explain) {
 
+        Set<String> requestedFields;
         try {
+            requestedFields = parseFields(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new FlowableConversionResponse(false, e.getMessage(), null, null, null));
+        }
+        boolean includeBpmnXml = requestedFields.contains(FlowableConversionResponse.FIELD_BPMN_XML);
+        boolean includeFlowableJson = requestedFields.contains(FlowableConversionResponse.FIELD_FLOWABLE_JSON);
+        boolean includeExecutionResult = requestedFields.contains(FlowableConversionResponse.FIELD_EXECUTION_RESULT);
+
+        StageProfiler profiler = StageProfiler.create(explain);
+        try {
+            boolean asyncExecution = async != null ? async : executionProperties.isAsync();
             logger.info("Starting conversion process for UI JSON");
 
             // Convert Map to ObjectNode for processing
+            profiler.start("binding");
             ObjectNode uiJson = objectMapper.valueToTree(uiJsonMap);
             logger.debug("Converted request to ObjectNode: {}", uiJson.asText());
 
-            // Step 1: Convert UI JSON to Flowable JSON
-            logger.debug("Step 1: Converting UI JSON to Flowable JSON");
-            ConverterConfig cfg = ConverterConfig.defaultConfig();
-            ObjectNode flowableJson = UiToFlowableConverter.convert(uiJson, cfg);
-            logger.debug("Flowable JSON generated successfully");
+            profiler.start("cacheLookup");
+            String conversionKey = conversionKey(uiJson, asyncExecution);
+            ConversionCacheEntry cached = conversionCache.get(conversionKey);
+            profiler.put("cacheHit", cached != null);
 
-            // Step 2: Convert Flowable JSON to BPMN XML
-            logger.debug("Step 2: Converting Flowable JSON to BPMN XML");
-            BpmnJsonConverter jsonConverter = new BpmnJsonConverter();
-            BpmnModel bpmnModel = jsonConverter.convertToBpmnModel(flowableJson);
+            String executionMessage = "Successfully converted UI JSON to BPMN. ";
+            ObjectNode flowableJson = null;
+            BpmnModel bpmnModel = null;
+            byte[] bpmnXml = null;
+            String processKey = null;
+            Map<String, Object> executionResult = null;
 
-            if (bpmnModel == null || bpmnModel.getProcesses().isEmpty()) {
-                throw new IllegalStateException("No BPMN processes generated from Flowable JSON");
+            if (cached != null) {
+                logger.debug("Using cached conversion {}", conversionKey);
+                profiler.start("cacheDecode");
+                if (includeFlowableJson) {
+                    flowableJson = (ObjectNode) objectMapper.readTree(cached.getFlowableJson());
+                }
+                bpmnXml = cached.getBpmnXml().getBytes(StandardCharsets.UTF_8);
+                processKey = cached.getProcessKey();
+            } else {
+                // Step 1: Convert UI JSON to Flowable JSON
+                logger.debug("Step 1: Converting UI JSON to Flowable JSON");
+                profiler.start("convert");
+                ConverterConfig cfg = ConverterConfig.defaultConfig();
+                flowableJson = UiToFlowableConverter.convert(uiJson, cfg);
+                logger.debug("Flowable JSON generated successfully");
+
+                // The BPMN model is only needed for the XML and execution parts
+                if (includeBpmnXml || includeExecutionResult) {
+                    // Step 2: Convert Flowable JSON to BPMN XML
+                    logger.debug("Step 2: Converting Flowable JSON to BPMN XML");
+                    profiler.start("bpmnJsonConverter");
+                    bpmnModel = JSON_CONVERTER.get().convertToBpmnModel(flowableJson);
+
+                    if (bpmnModel == null || bpmnModel.getProcesses().isEmpty()) {
+                        throw new IllegalStateException("No BPMN processes generated from Flowable JSON");
+                    }
+                    processKey = bpmnModel.getProcesses().get(0).getId();
+
+                    // Enrich service tasks with extension elements
+                    profiler.start("enrichServiceTasks");
+                    serviceTaskEnrichmentService.enrich(bpmnModel, flowableJson, asyncExecution);
+
+                    // Simulation works on the model directly, XML is needed for the response or deployment
+                    if (includeBpmnXml || !simulate) {
+                        profiler.start("xmlWrite");
+                        bpmnXml = XML_CONVERTER.get().convertToXML(bpmnModel);
+                        logger.debug("BPMN XML generated successfully, length: {} bytes", bpmnXml.length);
+
+                        profiler.start("cacheStore");
+                        conversionCache.put(conversionKey, new ConversionCacheEntry(
+                                objectMapper.writeValueAsString(flowableJson),
+                                new String(bpmnXml, StandardCharsets.UTF_8),
+                                processKey));
+                    }
+                }
             }
 
-            // Enrich service tasks with extension elements
-            enrichServiceTasks(bpmnModel, flowableJson);
-
-            BpmnXMLConverter xmlConverter = new BpmnXMLConverter();
-            byte[] bpmnXml = xmlConverter.convertToXML(bpmnModel);
-            logger.debug("BPMN XML generated successfully, length: {} bytes", bpmnXml.length);
-
             // Step 3: Try to execute the BPMN process (optional, doesn't fail the conversion)
-            Map<String, Object> executionResult = null;
-            String executionMessage = "Successfully converted UI JSON to BPMN. ";
-            
-            try {
-                logger.debug("Step 3: Executing BPMN process");
-                executionResult = executeBpmnProcess(bpmnXml, bpmnModel);
-                logger.info("BPMN process executed successfully");
-                executionMessage += "Process executed successfully.";
-            } catch (Exception executionError) {
-                // Log execution error but don't fail the response - BPMN generation was successful
-                logger.warn("Process execution failed (non-fatal, BPMN still valid): {}", 
-                    executionError.getMessage());
-                executionMessage += String.format("Note: Process execution encountered an error: %s. " +
-                    "This may be due to missing input variables for service tasks. " +
-                    "BPMN XML is still valid and can be deployed separately.", 
-                    executionError.getMessage());
+            if (includeExecutionResult) {
+                try {
+                    if (simulate) {
+                        logger.debug("Step 3: Simulating BPMN process");
+                        if (bpmnModel == null) {
+                            profiler.start("xmlParse");
+                            bpmnModel = parseBpmnXml(bpmnXml);
+                        }
+                        profiler.start("simulate");
+                        executionResult = flowSimulationService.simulate(bpmnModel, defaultProcessVariables());
+                        logger.info("BPMN process simulated successfully");
+                        executionMessage += "Process simulated successfully.";
+                    } else {
+                        logger.debug("Step 3: Executing BPMN process");
+                        executionResult = flowableExecutionService.execute(
+                                conversionKey, bpmnXml, processKey, defaultProcessVariables(), asyncExecution, profiler);
+                        if (FlowableExecutionService.STATUS_RUNNING.equals(executionResult.get("status"))) {
+                            logger.info("BPMN process started, service tasks running asynchronously");
+                            executionMessage += "Process started, poll /api/flowable/process-instances/"
+                                    + executionResult.get("processInstanceId") + " for completion.";
+                        } else {
+                            logger.info("BPMN process executed successfully");
+                            executionMessage += "Process executed successfully.";
+                        }
+                    }
+                } catch (Exception executionError) {
+                    // Log execution error but don't fail the response - BPMN generation was successful
+                    logger.warn("Process execution failed (non-fatal, BPMN still valid): {}", 
+                        executionError.getMessage());
+                    executionMessage += String.format("Note: Process execution encountered an error: %s. " +
+                        "This may be due to missing input variables for service tasks. " +
+                        "BPMN XML is still valid and can be deployed separately.", 
+                        executionError.getMessage());
+                }
             }
 
+            profiler.start("responseBuild");
             FlowableConversionResponse response = new FlowableConversionResponse(
                     true,
                     executionMessage,
-                    new String(bpmnXml, StandardCharsets.UTF_8),
-                    flowableJson,
+                    includeBpmnXml ? new String(bpmnXml, StandardCharsets.UTF_8) : null,
+                    includeFlowableJson ? flowableJson : null,
                     executionResult
             );
+            response.setIncludedFields(requestedFields);
+
+            if (profiler.isEnabled()) {
+                profiler.stop();
+                // Peer cache entries carry no model; parsing here stays outside the stage timings
+                if (bpmnModel == null && bpmnXml != null) {
+                    bpmnModel = parseBpmnXml(bpmnXml);
+                }
+                profiler.graphStatistics(bpmnModel);
+                response.setExplain(profiler.toReport());
+            }
 
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
             logger.error("Error during BPMN conversion", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new FlowableConversionResponse(
-                            false,
-                            "Error: " + e.getMessage(),
-                            null,
-                            null,
-                            null
-                    ));
+            FlowableConversionResponse response = new FlowableConversionResponse(
+                    false,
+                    "Error: " + e.getMessage(),
+                    null,
+                    null,
+                    null
+            );
+            // Partial report: the last stage is the one that failed
+            response.setExplain(profiler.toReport());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
 
     /**
-     * Execute BPMN process and collect results
+     * Endpoint to poll the status and variables of a started process instance
+     * GET /api/flowable/process-instances/{processInstanceId}
      */
-    private Map<String, Object> executeBpmnProcess(byte[] bpmnXml, BpmnModel bpmnModel) throws Exception {
-        logger.info("Initializing Flowable engine");
-
-        // Create in-memory Flowable engine
-        ProcessEngineConfiguration cfg = ProcessEngineConfiguration
-                .createStandaloneInMemProcessEngineConfiguration();
-        cfg.setJdbcUrl("jdbc:h2:mem:flowable;DB_CLOSE_DELAY=1000");
-        cfg.setJdbcDriver("org.h2.Driver");
-        cfg.setJdbcUsername("sa");
-        cfg.setJdbcPassword("");
-        cfg.setDatabaseSchemaUpdate(ProcessEngineConfiguration.DB_SCHEMA_UPDATE_TRUE);
-
-        ProcessEngine engine = cfg.buildProcessEngine();
+    @GetMapping("/process-instances/{processInstanceId}")
+    public ResponseEntity<Map<String, Object>> getProcessInstanceResult(
+            @PathVariable String processInstanceId) {
 
         try {
-            RepositoryService repositoryService = engine.getRepositoryService();
-            RuntimeService runtimeService = engine.getRuntimeService();
-            HistoryService historyService = engine.getHistoryService();
-
-            // Deploy the BPMN
-            logger.info("Deploying BPMN process");
-            Deployment deployment = repositoryService.createDeployment()
-                    .name("ui-generated-process")
-                    .addInputStream("process.bpmn20.xml", new ByteArrayInputStream(bpmnXml))
-                    .deploy();
-            logger.info("Deployment successful, deployment ID: {}", deployment.getId());
-
-            // Start process with default variables
-            logger.info("Starting process instance");
-            String processKey = bpmnModel.getProcesses().get(0).getId();
-            Map<String, Object> processVars = new HashMap<>();
-            processVars.put("initiator", "flowbox-ui");
-
-            ProcessInstance processInstance = runtimeService.startProcessInstanceByKey(processKey, processVars);
-            String processInstanceId = processInstance.getProcessInstanceId();
-            logger.info("Process instance started, ID: {}", processInstanceId);
-
-            // Collect results from history
-            Map<String, Object> results = new HashMap<>();
-            results.put("processInstanceId", processInstanceId);
-            results.put("deploymentId", deployment.getId());
-            results.put("processKey", processKey);
-
-            // Collect all process variables from history
-            List<HistoricVariableInstance> variables = historyService
-                    .createHistoricVariableInstanceQuery()
-                    .processInstanceId(processInstanceId)
-                    .list();
-
-            Map<String, Object> processVariables = new HashMap<>();
-            for (HistoricVariableInstance var : variables) {
-                processVariables.put(var.getVariableName(), var.getValue());
-                logger.debug("Process variable: {} = {}", var.getVariableName(), var.getValue());
+            Map<String, Object> result = flowableExecutionService.getProcessInstanceResult(processInstanceId);
+            if (result == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
             }
-            results.put("processVariables", processVariables);
-
-            logger.info("Process execution completed successfully");
-            return results;
+            return ResponseEntity.ok(result);
 
-        } finally {
-            engine.close();
-            logger.debug("Flowable engine closed");
+        } catch (Exception e) {
+            logger.error("Error retrieving process instance {}", processInstanceId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
     /**
-     * Enrich BPMN model with service task configuration from Flowable JSON
+     * Cache key for a conversion: hash of the UI graph plus the options that change the BPMN
      */
-    private void enrichServiceTasks(BpmnModel bpmnModel, ObjectNode flowableJson) {
-        logger.debug("Enriching BPMN model with extension elements from Flowable JSON");
-
-        // Extract task properties from Flowable JSON
-        Map<String, ObjectNode> taskProperties = new HashMap<>();
-        JsonNode childShapes = flowableJson.get("childShapes");
-        if (childShapes != null && childShapes.isArray()) {
-            for (JsonNode shape : childShapes) {
-                String resourceId = shape.get("resourceId").asText();
-                JsonNode props = shape.get("properties");
-                if (props != null && props.isObject()) {
-                    taskProperties.put(resourceId, (ObjectNode) props);
-                }
-            }
-        }
-
-        // Enrich service tasks in BPMN model
-        bpmnModel.getProcesses().forEach(process ->
-            process.getFlowElements().forEach(element -> {
-                if (element instanceof ServiceTask) {
-                    ServiceTask task = (ServiceTask) element;
-                    ObjectNode props = taskProperties.get(element.getId());
-
-                    if (props != null) {
-                        // Add delegationId as extension element if present
-                        String delegationId = props.has("delegationId") 
-                            ? props.get("delegationId").asText() 
-                            : null;
-                        
-                        if (delegationId != null && !delegationId.isBlank()) {
-                            addExtensionElement(task, "delegationId", delegationId);
-                            logger.debug("Added delegationId '{}' to service task '{}'", delegationId, element.getId());
-                        }
+    private String conversionKey(ObjectNode uiJson, boolean async) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(objectMapper.writeValueAsBytes(uiJson));
+        digest.update((byte) (async ? 1 : 0));
+        return HexFormat.of().formatHex(digest.digest());
+    }
 
-                        // Add other extension elements
-                        if (props.has("delegationType")) {
-                            addExtensionElement(task, "delegationType", 
-                                props.get("delegationType").asText());
-                        }
-                        if (props.has("selectedFields")) {
-                            addExtensionElement(task, "selectedFields", 
-                                props.get("selectedFields").asText());
-                        }
-                        if (props.has("requiredFields")) {
-                            addExtensionElement(task, "requiredFields", 
-                                props.get("requiredFields").asText());
-                        }
-                    }
-                }
-            })
-        );
+    /**
+     * Rebuild a BPMN model from XML, for cache entries received from a peer
+     */
+    private BpmnModel parseBpmnXml(byte[] bpmnXml) {
+        return XML_CONVERTER.get().convertToBpmnModel(
+                () -> new ByteArrayInputStream(bpmnXml), false, false);
     }
 
     /**
-     * Helper to add extension element to a service task
+     * Parse the fields= selector; no selector means every part of the response
      */
-    private void addExtensionElement(ServiceTask task, String name, String value) {
-        if (value == null || value.isBlank()) {
-            return;
+    private Set<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return FlowableConversionResponse.SELECTABLE_FIELDS;
+        }
+
+        Set<String> requested = new HashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!FlowableConversionResponse.SELECTABLE_FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Invalid field: " + name +
+                        ". Valid fields are: bpmnXml, flowableJson, executionResult");
+            }
+            requested.add(name);
         }
-        
-        ExtensionElement element = new ExtensionElement();
-        element.setNamespace("http://flowable.org/bpmn");
-        element.setNamespacePrefix("flowable");
-        element.setName(name);
-        element.setElementText(value);
-        task.addExtensionElement(element);
+        return requested;
+    }
+
+    /**
+     * Variables every generated process is started with, shared by execution and simulation
+     */
+    private Map<String, Object> defaultProcessVariables() {
+        Map<String, Object> processVars = new HashMap<>();
+        processVars.put("initiator", "flowbox-ui");
+        return processVars;
     }
 }
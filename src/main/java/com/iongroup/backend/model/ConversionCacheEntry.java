@@ -0,0 +1,62 @@
+package com.iongroup.backend.model;
+
+/**
+ * Cached result of converting a UI graph, exchanged between backend instances.
+ * Holds the serialized forms only; a model is re-parsed from the XML when needed.
+ */
+public class ConversionCacheEntry {
+    // Set when exchanged with a peer: the key the entry was stored under and an HMAC over key and content
+    private String key;
+    private String signature;
+    private String flowableJson;
+    private String bpmnXml;
+    private String processKey;
+
+    public ConversionCacheEntry() {}
+
+    public ConversionCacheEntry(String flowableJson, String bpmnXml, String processKey) {
+        this.flowableJson = flowableJson;
+        this.bpmnXml = bpmnXml;
+        this.processKey = processKey;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public void setSignature(String signature) {
+        this.signature = signature;
+    }
+
+    public String getFlowableJson() {
+        return flowableJson;
+    }
+
+    public void setFlowableJson(String flowableJson) {
+        this.flowableJson = flowableJson;
+    }
+
+    public String getBpmnXml() {
+        return bpmnXml;
+    }
+
+    public void setBpmnXml(String bpmnXml) {
+        this.bpmnXml = bpmnXml;
+    }
+
+    public String getProcessKey() {
+        return processKey;
+    }
+
+    public void setProcessKey(String processKey) {
+        this.processKey = processKey;
+    }
+}
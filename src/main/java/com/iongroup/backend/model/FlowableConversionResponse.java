@@ -1,18 +1,36 @@
 package com.iongroup.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * API response model for Flowable conversion operations.
+ * Parts that were not requested through the fields= selector are left out of the payload;
+ * requested parts are always written, null when they could not be produced.
  */
 public class FlowableConversionResponse {
+    public static final String FIELD_BPMN_XML = "bpmnXml";
+    public static final String FIELD_FLOWABLE_JSON = "flowableJson";
+    public static final String FIELD_EXECUTION_RESULT = "executionResult";
+    public static final Set<String> SELECTABLE_FIELDS =
+            Set.of(FIELD_BPMN_XML, FIELD_FLOWABLE_JSON, FIELD_EXECUTION_RESULT);
+
+    // Shared across instances, ObjectMapper is thread-safe once configured
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     private boolean success;
     private String message;
     private String bpmnXml;
     private Map<String, Object> flowableJson;
     private Map<String, Object> executionResult;
+    private Map<String, Object> explain;
+    private Set<String> includedFields = SELECTABLE_FIELDS;
 
     public FlowableConversionResponse() {}
 
@@ -22,8 +40,7 @@ public class FlowableConversionResponse {
         this.message = message;
         this.bpmnXml = bpmnXml;
         // Convert ObjectNode to Map for proper JSON serialization
-        ObjectMapper mapper = new ObjectMapper();
-        this.flowableJson = mapper.convertValue(flowableJsonNode, Map.class);
+        this.flowableJson = OBJECT_MAPPER.convertValue(flowableJsonNode, Map.class);
         this.executionResult = executionResult;
     }
 
@@ -43,6 +60,7 @@ public class FlowableConversionResponse {
         this.message = message;
     }
 
+    @JsonIgnore
     public String getBpmnXml() {
         return bpmnXml;
     }
@@ -51,6 +69,7 @@ public class FlowableConversionResponse {
         this.bpmnXml = bpmnXml;
     }
 
+    @JsonIgnore
     public Map<String, Object> getFlowableJson() {
         return flowableJson;
     }
@@ -59,6 +78,7 @@ public class FlowableConversionResponse {
         this.flowableJson = flowableJson;
     }
 
+    @JsonIgnore
     public Map<String, Object> getExecutionResult() {
         return executionResult;
     }
@@ -66,4 +86,40 @@ public class FlowableConversionResponse {
     public void setExecutionResult(Map<String, Object> executionResult) {
         this.executionResult = executionResult;
     }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Map<String, Object> getExplain() {
+        return explain;
+    }
+
+    public void setExplain(Map<String, Object> explain) {
+        this.explain = explain;
+    }
+
+    @JsonIgnore
+    public Set<String> getIncludedFields() {
+        return includedFields;
+    }
+
+    public void setIncludedFields(Set<String> includedFields) {
+        this.includedFields = includedFields;
+    }
+
+    /**
+     * The selectable parts in the payload, limited to the included fields
+     */
+    @JsonAnyGetter
+    public Map<String, Object> getSelectedParts() {
+        Map<String, Object> parts = new LinkedHashMap<>();
+        if (includedFields.contains(FIELD_BPMN_XML)) {
+            parts.put(FIELD_BPMN_XML, bpmnXml);
+        }
+        if (includedFields.contains(FIELD_FLOWABLE_JSON)) {
+            parts.put(FIELD_FLOWABLE_JSON, flowableJson);
+        }
+        if (includedFields.contains(FIELD_EXECUTION_RESULT)) {
+            parts.put(FIELD_EXECUTION_RESULT, executionResult);
+        }
+        return parts;
+    }
 }
@@ -0,0 +1,32 @@
+package com.iongroup.backend.model;
+
+import com.iongroup.library.registry.OperationDescriptor;
+import java.util.List;
+
+/**
+ * Operation chain that produces the target outputs from the available inputs.
+ * Instances are memoized by the planner and must not be modified.
+ */
+public class OperationPlan {
+    private final boolean resolved;
+    private final List<OperationDescriptor> operations;
+    private final List<String> missingInputs;
+
+    public OperationPlan(boolean resolved, List<OperationDescriptor> operations, List<String> missingInputs) {
+        this.resolved = resolved;
+        this.operations = List.copyOf(operations);
+        this.missingInputs = List.copyOf(missingInputs);
+    }
+
+    public boolean isResolved() {
+        return resolved;
+    }
+
+    public List<OperationDescriptor> getOperations() {
+        return operations;
+    }
+
+    public List<String> getMissingInputs() {
+        return missingInputs;
+    }
+}
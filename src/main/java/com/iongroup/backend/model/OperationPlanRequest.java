@@ -0,0 +1,39 @@
+package com.iongroup.backend.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * API request model for planning an operation chain.
+ */
+public class OperationPlanRequest {
+    private List<String> availableInputs = new ArrayList<>();
+    private List<String> targetOutputs = new ArrayList<>();
+    private boolean includeUiGraph;
+
+    public OperationPlanRequest() {}
+
+    public List<String> getAvailableInputs() {
+        return availableInputs;
+    }
+
+    public void setAvailableInputs(List<String> availableInputs) {
+        this.availableInputs = availableInputs;
+    }
+
+    public List<String> getTargetOutputs() {
+        return targetOutputs;
+    }
+
+    public void setTargetOutputs(List<String> targetOutputs) {
+        this.targetOutputs = targetOutputs;
+    }
+
+    public boolean isIncludeUiGraph() {
+        return includeUiGraph;
+    }
+
+    public void setIncludeUiGraph(boolean includeUiGraph) {
+        this.includeUiGraph = includeUiGraph;
+    }
+}
@@ -0,0 +1,67 @@
+package com.iongroup.backend.model;
+
+import com.iongroup.library.registry.OperationDescriptor;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * API response model for operation chain planning.
+ */
+public class OperationPlanResponse {
+    private boolean success;
+    private String message;
+    private List<OperationDescriptor> data;
+    private List<String> missingInputs;
+    private Map<String, Object> uiGraph;
+
+    public OperationPlanResponse() {}
+
+    public OperationPlanResponse(boolean success, String message, List<OperationDescriptor> data,
+                                 List<String> missingInputs, Map<String, Object> uiGraph) {
+        this.success = success;
+        this.message = message;
+        this.data = data;
+        this.missingInputs = missingInputs;
+        this.uiGraph = uiGraph;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public List<OperationDescriptor> getData() {
+        return data;
+    }
+
+    public void setData(List<OperationDescriptor> data) {
+        this.data = data;
+    }
+
+    public List<String> getMissingInputs() {
+        return missingInputs;
+    }
+
+    public void setMissingInputs(List<String> missingInputs) {
+        this.missingInputs = missingInputs;
+    }
+
+    public Map<String, Object> getUiGraph() {
+        return uiGraph;
+    }
+
+    public void setUiGraph(Map<String, Object> uiGraph) {
+        this.uiGraph = uiGraph;
+    }
+}
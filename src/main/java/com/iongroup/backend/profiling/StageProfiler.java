@@ -0,0 +1,170 @@
+package com.iongroup.backend.profiling;
+
+import org.flowable.bpmn.model.BpmnModel;
+import org.flowable.bpmn.model.FlowElement;
+import org.flowable.bpmn.model.Process;
+import org.flowable.bpmn.model.SequenceFlow;
+import org.flowable.bpmn.model.ServiceTask;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-request stage timings for explain mode: wall time, CPU time and bytes
+ * allocated by the request thread for each stage, plus graph statistics.
+ * Stages run one after another; starting a stage ends the previous one.
+ * The DISABLED instance records nothing, so callers can profile unconditionally.
+ */
+public class StageProfiler {
+
+    public static final StageProfiler DISABLED = new StageProfiler(false);
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final boolean enabled;
+    private final List<Map<String, Object>> stages;
+    private final Map<String, Object> attributes;
+    private String currentStage;
+    private long wallStart;
+    private long cpuStart;
+    private long allocatedStart;
+
+    private StageProfiler(boolean enabled) {
+        this.enabled = enabled;
+        this.stages = enabled ? new ArrayList<>() : null;
+        this.attributes = enabled ? new LinkedHashMap<>() : null;
+    }
+
+    /**
+     * Get a profiler for one request.
+     *
+     * @param enabled whether explain mode was requested
+     * @return a new recording profiler, or DISABLED
+     */
+    public static StageProfiler create(boolean enabled) {
+        return enabled ? new StageProfiler(true) : DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start timing a stage, ending the current one if any.
+     *
+     * @param stage stage name as shown in the report
+     */
+    public void start(String stage) {
+        if (!enabled) {
+            return;
+        }
+        stop();
+        currentStage = stage;
+        allocatedStart = allocatedBytes();
+        cpuStart = cpuTime();
+        wallStart = System.nanoTime();
+    }
+
+    /**
+     * End the current stage.
+     */
+    public void stop() {
+        if (!enabled || currentStage == null) {
+            return;
+        }
+        long wallNanos = System.nanoTime() - wallStart;
+        long cpuNanos = cpuTime() - cpuStart;
+        long allocated = allocatedBytes() - allocatedStart;
+
+        Map<String, Object> stage = new LinkedHashMap<>();
+        stage.put("stage", currentStage);
+        stage.put("wallMicros", wallNanos / 1_000);
+        stage.put("cpuMicros", cpuStart < 0 ? -1 : cpuNanos / 1_000);
+        stage.put("allocatedBytes", allocatedStart < 0 ? -1 : allocated);
+        stages.add(stage);
+        currentStage = null;
+    }
+
+    /**
+     * Record a value next to the stage timings, e.g. whether the cache was hit.
+     */
+    public void put(String name, Object value) {
+        if (enabled) {
+            attributes.put(name, value);
+        }
+    }
+
+    /**
+     * Record node, edge and service task counts of a BPMN model.
+     */
+    public void graphStatistics(BpmnModel bpmnModel) {
+        if (!enabled || bpmnModel == null) {
+            return;
+        }
+        int nodes = 0;
+        int edges = 0;
+        int serviceTasks = 0;
+        for (Process process : bpmnModel.getProcesses()) {
+            for (FlowElement element : process.getFlowElements()) {
+                if (element instanceof SequenceFlow) {
+                    edges++;
+                } else {
+                    nodes++;
+                    if (element instanceof ServiceTask) {
+                        serviceTasks++;
+                    }
+                }
+            }
+        }
+
+        Map<String, Object> graph = new LinkedHashMap<>();
+        graph.put("processes", bpmnModel.getProcesses().size());
+        graph.put("nodes", nodes);
+        graph.put("edges", edges);
+        graph.put("serviceTasks", serviceTasks);
+        attributes.put("graph", graph);
+    }
+
+    /**
+     * Get the report, ending the current stage if one is still open.
+     *
+     * @return report map, or null when disabled
+     */
+    public Map<String, Object> toReport() {
+        if (!enabled) {
+            return null;
+        }
+        stop();
+
+        long totalWall = 0;
+        long totalAllocated = 0;
+        for (Map<String, Object> stage : stages) {
+            totalWall += (Long) stage.get("wallMicros");
+            totalAllocated += Math.max(0, (Long) stage.get("allocatedBytes"));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>(attributes);
+        report.put("stages", stages);
+        report.put("totalWallMicros", totalWall);
+        report.put("totalAllocatedBytes", totalAllocated);
+        return report;
+    }
+
+    private static long cpuTime() {
+        return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long allocatedBytes() {
+        if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getCurrentThreadAllocatedBytes();
+            }
+        }
+        return -1;
+    }
+}
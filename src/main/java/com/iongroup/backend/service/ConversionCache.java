@@ -0,0 +1,35 @@
+package com.iongroup.backend.service;
+
+import com.iongroup.backend.model.ConversionCacheEntry;
+
+import java.util.Map;
+
+/**
+ * Cache for UI graph conversion results. Implementations may be local or
+ * shared across backend instances.
+ */
+public interface ConversionCache {
+
+    /**
+     * Look up a conversion result.
+     *
+     * @param key the conversion key
+     * @return the cached entry, or null on a miss
+     */
+    ConversionCacheEntry get(String key);
+
+    /**
+     * Store a conversion result.
+     *
+     * @param key   the conversion key
+     * @param entry the conversion result
+     */
+    void put(String key, ConversionCacheEntry entry);
+
+    /**
+     * Get hit/miss counters for this instance.
+     *
+     * @return statistics by name
+     */
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,130 @@
+package com.iongroup.backend.service;
+
+import com.iongroup.library.registry.OperationDescriptor;
+import org.flowable.engine.delegate.DelegateExecution;
+import org.flowable.engine.delegate.JavaDelegate;
+
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Simulation stub that runs the operation's own JavaDelegate against an in-memory
+ * execution instead of the engine, so simulated variables are exactly what the
+ * delegate writes. The execution only supports variable access and ids, and reports
+ * the operation id as current activity id; a delegate that needs anything else from
+ * the engine fails the simulated step.
+ */
+public class DelegateSimulationStub implements SimulationStub {
+
+    private static final String SIMULATION_ID = "simulation";
+
+    private final String operationId;
+    private volatile JavaDelegate delegate;
+
+    public DelegateSimulationStub(String operationId) {
+        this.operationId = operationId;
+    }
+
+    @Override
+    public String getOperationId() {
+        return operationId;
+    }
+
+    /**
+     * Run the delegate with the resolved inputs as its variables.
+     *
+     * @return every variable the delegate set, in the order it set them
+     */
+    @Override
+    public Map<String, Object> execute(OperationDescriptor operation, Map<String, Object> inputs) {
+        Map<String, Object> variables = new HashMap<>(inputs);
+        Map<String, Object> written = new LinkedHashMap<>();
+        delegate(operation).execute(execution(operation, variables, written));
+        return written;
+    }
+
+    /**
+     * The delegate instance, created once like the engine's class delegate does per task
+     */
+    private JavaDelegate delegate(OperationDescriptor operation) {
+        JavaDelegate current = delegate;
+        if (current == null) {
+            String className = operation.getImplementationClass();
+            try {
+                Object instance = Class.forName(className).getDeclaredConstructor().newInstance();
+                if (!(instance instanceof JavaDelegate)) {
+                    throw new IllegalStateException(className + " is not a JavaDelegate");
+                }
+                current = (JavaDelegate) instance;
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot instantiate delegate " + className, e);
+            }
+            delegate = current;
+        }
+        return current;
+    }
+
+    @SuppressWarnings("unchecked")
+    private DelegateExecution execution(OperationDescriptor operation, Map<String, Object> variables,
+                                        Map<String, Object> written) {
+        return (DelegateExecution) Proxy.newProxyInstance(
+                DelegateExecution.class.getClassLoader(),
+                new Class<?>[] {DelegateExecution.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getVariable":
+                        case "getVariableLocal":
+                            return variables.get((String) args[0]);
+                        case "getVariables":
+                        case "getVariablesLocal":
+                            Map<String, Object> copy = new HashMap<>(variables);
+                            if (args != null && args.length > 0 && args[0] instanceof Collection) {
+                                copy.keySet().retainAll((Collection<String>) args[0]);
+                            }
+                            return copy;
+                        case "getVariableNames":
+                        case "getVariableNamesLocal":
+                            return new HashSet<>(variables.keySet());
+                        case "hasVariable":
+                        case "hasVariableLocal":
+                            return variables.containsKey((String) args[0]);
+                        case "hasVariables":
+                        case "hasVariablesLocal":
+                            return !variables.isEmpty();
+                        case "setVariable":
+                        case "setVariableLocal":
+                            written.put((String) args[0], args[1]);
+                            return variables.put((String) args[0], args[1]);
+                        case "setVariables":
+                        case "setVariablesLocal":
+                            written.putAll((Map<String, Object>) args[0]);
+                            variables.putAll((Map<String, Object>) args[0]);
+                            return null;
+                        case "removeVariable":
+                        case "removeVariableLocal":
+                            written.remove((String) args[0]);
+                            variables.remove((String) args[0]);
+                            return null;
+                        case "getId":
+                        case "getProcessInstanceId":
+                        case "getRootProcessInstanceId":
+                            return SIMULATION_ID;
+                        case "getCurrentActivityId":
+                            return operation.getId();
+                        case "toString":
+                            return "DelegateExecution[simulated " + operation.getId() + "]";
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName()
+                                    + " is not available when simulating " + operation.getId());
+                    }
+                });
+    }
+}
@@ -0,0 +1,419 @@
+package com.iongroup.backend.service;
+
+import com.iongroup.backend.config.FlowCacheProperties;
+import com.iongroup.backend.model.ConversionCacheEntry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conversion cache shared across backend instances.
+ * Every key is owned by one instance chosen by consistent hashing over the
+ * configured peers; non-owners look entries up from the owner over HTTP and keep
+ * a local copy, and push what they convert to the owner in the background so
+ * the next lookup on any instance finds it. Peer calls carry the shared secret
+ * and exchanged entries are signed with it, so only cluster members can read or
+ * write entries and an entry is only used if it was signed for its key.
+ * A peer that fails is skipped for flow.cache.peer-backoff-millis, lookups in that
+ * window are plain misses so callers fall back to converting locally.
+ * The local store is an LRU bounded by entry count and estimated size.
+ * With no peers or no shared secret configured it is a plain local LRU cache.
+ */
+@Service
+public class DistributedConversionCache implements PeerConversionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DistributedConversionCache.class);
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String ENTRY_PATH = "/api/cache/conversions/{key}";
+    private static final String STATS_PATH = "/api/cache/stats";
+    private static final ParameterizedTypeReference<Map<String, Object>> STATS_TYPE =
+            new ParameterizedTypeReference<>() {};
+
+    private final FlowCacheProperties properties;
+    private final String self;
+    private final List<String> peers = new ArrayList<>();
+    private final ConsistentHashRing ring;
+    private final RestClient restClient;
+    private final String sharedSecret;
+    // Pushes to owners; when the queue is full further pushes are dropped, the owner then just misses
+    private final ExecutorService pushExecutor;
+    // Peer URL to System.nanoTime() until which calls to it are skipped
+    private final Map<String, Long> peerBackoffUntil = new ConcurrentHashMap<>();
+
+    // Access-ordered LRU, guarded by its own monitor together with localBytes
+    private final LinkedHashMap<String, ConversionCacheEntry> localEntries =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private long localBytes;
+
+    private final AtomicLong localHits = new AtomicLong();
+    private final AtomicLong remoteHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong peerFailures = new AtomicLong();
+    private final AtomicLong skippedPeerCalls = new AtomicLong();
+    private final AtomicLong pushes = new AtomicLong();
+
+    public DistributedConversionCache(FlowCacheProperties properties) {
+        this.properties = properties;
+        this.self = normalize(properties.getSelfUrl());
+        String secret = properties.getSharedSecret();
+        this.sharedSecret = secret == null || secret.isBlank() ? null : secret;
+
+        Set<String> nodes = new LinkedHashSet<>();
+        nodes.add(self);
+        for (String peer : properties.getPeers()) {
+            if (peer.isBlank()) {
+                continue;
+            }
+            String node = normalize(peer);
+            if (nodes.add(node)) {
+                peers.add(node);
+            }
+        }
+        this.ring = new ConsistentHashRing(nodes, properties.getVirtualNodes());
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofMillis(properties.getPeerTimeoutMillis()));
+        requestFactory.setReadTimeout(Duration.ofMillis(properties.getPeerTimeoutMillis()));
+        this.restClient = RestClient.builder().requestFactory(requestFactory).build();
+        this.pushExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getPushQueueSize()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "conversion-cache-push");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+
+        if (sharedSecret == null && !peers.isEmpty()) {
+            logger.warn("flow.cache.shared-secret is not set, peer lookups and pushes are disabled");
+        }
+        logger.info("Conversion cache on {} with {} peer(s)", self, peers.size());
+    }
+
+    @Override
+    public ConversionCacheEntry get(String key) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+
+        ConversionCacheEntry entry = getLocal(key);
+        if (entry != null) {
+            localHits.incrementAndGet();
+            return entry;
+        }
+
+        String owner = ring.ownerOf(key);
+        if (sharedSecret != null && !self.equals(owner) && !isBackingOff(owner)) {
+            entry = fetchFromPeer(owner, key);
+            if (entry != null) {
+                remoteHits.incrementAndGet();
+                putLocal(key, entry);
+                return entry;
+            }
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Store a result this instance converted. If another instance owns the key,
+     * a signed copy is also pushed to it off the calling thread.
+     */
+    @Override
+    public void put(String key, ConversionCacheEntry entry) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        putLocal(key, entry);
+
+        String owner = ring.ownerOf(key);
+        if (sharedSecret != null && !self.equals(owner) && !isBackingOff(owner)) {
+            ConversionCacheEntry signed = signedCopy(key, entry);
+            pushExecutor.execute(() -> pushToPeer(owner, key, signed));
+        }
+    }
+
+    /**
+     * Check the token a peer presented, with PEER_TOKEN_HEADER.
+     *
+     * @param token value of the PEER_TOKEN_HEADER header, may be null
+     * @return true if peer calls are enabled and the token matches the shared secret
+     */
+    @Override
+    public boolean isAuthorizedPeer(String token) {
+        if (sharedSecret == null || token == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+                token.getBytes(StandardCharsets.UTF_8), sharedSecret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Look up an entry in this instance's store only, signed for the requesting peer.
+     *
+     * @param key the conversion key
+     * @return a signed copy of the stored entry, or null
+     */
+    @Override
+    public ConversionCacheEntry getForPeer(String key) {
+        ConversionCacheEntry entry = getLocal(key);
+        return entry != null ? signedCopy(key, entry) : null;
+    }
+
+    /**
+     * Store an entry a peer converted, only if it was signed for the key.
+     *
+     * @param key   the conversion key from the request path
+     * @param entry the pushed entry
+     * @return true if the signature matched
+     */
+    @Override
+    public boolean putFromPeer(String key, ConversionCacheEntry entry) {
+        if (sharedSecret == null || !isSignedFor(key, entry)) {
+            return false;
+        }
+        if (properties.isEnabled()) {
+            putLocal(key, new ConversionCacheEntry(entry.getFlowableJson(), entry.getBpmnXml(), entry.getProcessKey()));
+        }
+        return true;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("node", self);
+        synchronized (localEntries) {
+            stats.put("entries", localEntries.size());
+            stats.put("bytes", localBytes);
+        }
+        stats.put("localHits", localHits.get());
+        stats.put("remoteHits", remoteHits.get());
+        stats.put("misses", misses.get());
+        stats.put("pushes", pushes.get());
+        stats.put("peerFailures", peerFailures.get());
+        stats.put("skippedPeerCalls", skippedPeerCalls.get());
+        stats.put("hitRate", hitRate(localHits.get() + remoteHits.get(), misses.get()));
+        return stats;
+    }
+
+    @Override
+    public Map<String, Object> getClusterStats() {
+        List<Map<String, Object>> nodes = new ArrayList<>();
+        List<String> unreachable = new ArrayList<>();
+        nodes.add(getStats());
+
+        for (String peer : peers) {
+            try {
+                Map<String, Object> peerStats = restClient.get()
+                        .uri(peer + STATS_PATH)
+                        .retrieve()
+                        .body(STATS_TYPE);
+                if (peerStats != null) {
+                    nodes.add(peerStats);
+                }
+            } catch (Exception e) {
+                unreachable.add(peer);
+            }
+        }
+
+        Map<String, Long> totals = new HashMap<>();
+        for (Map<String, Object> node : nodes) {
+            for (String counter : List.of("localHits", "remoteHits", "misses", "pushes", "peerFailures", "skippedPeerCalls")) {
+                Object value = node.get(counter);
+                if (value instanceof Number) {
+                    totals.merge(counter, ((Number) value).longValue(), Long::sum);
+                }
+            }
+        }
+
+        long hits = totals.getOrDefault("localHits", 0L) + totals.getOrDefault("remoteHits", 0L);
+        Map<String, Object> cluster = new LinkedHashMap<>(totals);
+        cluster.put("hitRate", hitRate(hits, totals.getOrDefault("misses", 0L)));
+        cluster.put("nodes", nodes);
+        cluster.put("unreachable", unreachable);
+        return cluster;
+    }
+
+    @PreDestroy
+    public void close() {
+        pushExecutor.shutdownNow();
+    }
+
+    private ConversionCacheEntry fetchFromPeer(String owner, String key) {
+        try {
+            ConversionCacheEntry entry = restClient.get()
+                    .uri(owner + ENTRY_PATH, key)
+                    .header(PEER_TOKEN_HEADER, sharedSecret)
+                    .exchange((request, response) -> {
+                        if (response.getStatusCode().value() == 404) {
+                            return null;
+                        }
+                        if (!response.getStatusCode().is2xxSuccessful()) {
+                            throw new IllegalStateException("HTTP " + response.getStatusCode().value());
+                        }
+                        return response.bodyTo(ConversionCacheEntry.class);
+                    });
+            if (entry == null) {
+                peerBackoffUntil.remove(owner);
+                return null;
+            }
+            if (!isSignedFor(key, entry)) {
+                peerFailed(owner);
+                logger.warn("Peer {} returned an entry that does not match conversion {}, ignoring it", owner, key);
+                return null;
+            }
+            peerBackoffUntil.remove(owner);
+            return new ConversionCacheEntry(entry.getFlowableJson(), entry.getBpmnXml(), entry.getProcessKey());
+        } catch (Exception e) {
+            peerFailed(owner);
+            logger.warn("Peer {} unavailable for conversion {}, converting locally: {}", owner, key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void pushToPeer(String owner, String key, ConversionCacheEntry entry) {
+        try {
+            restClient.put()
+                    .uri(owner + ENTRY_PATH, key)
+                    .header(PEER_TOKEN_HEADER, sharedSecret)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(entry)
+                    .retrieve()
+                    .toBodilessEntity();
+            pushes.incrementAndGet();
+            peerBackoffUntil.remove(owner);
+        } catch (Exception e) {
+            peerFailed(owner);
+            logger.warn("Could not push conversion {} to peer {}: {}", key, owner, e.getMessage());
+        }
+    }
+
+    /**
+     * Whether calls to the peer are skipped because it failed recently
+     */
+    private boolean isBackingOff(String peer) {
+        Long until = peerBackoffUntil.get(peer);
+        if (until != null && System.nanoTime() - until < 0) {
+            skippedPeerCalls.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private void peerFailed(String peer) {
+        peerFailures.incrementAndGet();
+        peerBackoffUntil.put(peer, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getPeerBackoffMillis()));
+    }
+
+    private ConversionCacheEntry getLocal(String key) {
+        synchronized (localEntries) {
+            return localEntries.get(key);
+        }
+    }
+
+    /**
+     * Store an entry and evict least recently used ones until both bounds hold.
+     * An entry larger than the byte bound on its own is not stored.
+     */
+    private void putLocal(String key, ConversionCacheEntry entry) {
+        long size = estimateBytes(entry);
+        if (size > properties.getMaxLocalBytes()) {
+            return;
+        }
+        synchronized (localEntries) {
+            ConversionCacheEntry previous = localEntries.put(key, entry);
+            localBytes += size - (previous != null ? estimateBytes(previous) : 0);
+
+            Iterator<ConversionCacheEntry> eldest = localEntries.values().iterator();
+            while (localEntries.size() > properties.getMaxLocalEntries()
+                    || localBytes > properties.getMaxLocalBytes()) {
+                localBytes -= estimateBytes(eldest.next());
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Upper bound of the heap taken by an entry's strings, two bytes per char
+     */
+    private static long estimateBytes(ConversionCacheEntry entry) {
+        long chars = 0;
+        for (String part : new String[] {entry.getFlowableJson(), entry.getBpmnXml(), entry.getProcessKey()}) {
+            if (part != null) {
+                chars += part.length();
+            }
+        }
+        return 2 * chars;
+    }
+
+    private ConversionCacheEntry signedCopy(String key, ConversionCacheEntry entry) {
+        ConversionCacheEntry signed = new ConversionCacheEntry(
+                entry.getFlowableJson(), entry.getBpmnXml(), entry.getProcessKey());
+        signed.setKey(key);
+        signed.setSignature(sign(key, signed));
+        return signed;
+    }
+
+    private boolean isSignedFor(String key, ConversionCacheEntry entry) {
+        return entry != null && key.equals(entry.getKey()) && entry.getSignature() != null
+                && MessageDigest.isEqual(entry.getSignature().getBytes(StandardCharsets.UTF_8),
+                        sign(key, entry).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * HMAC over the key and every content field, hex encoded
+     */
+    private String sign(String key, ConversionCacheEntry entry) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(sharedSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            for (String part : new String[] {key, entry.getProcessKey(), entry.getFlowableJson(), entry.getBpmnXml()}) {
+                if (part != null) {
+                    mac.update(part.getBytes(StandardCharsets.UTF_8));
+                }
+                mac.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(mac.doFinal());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign cache entries with " + HMAC_ALGORITHM, e);
+        }
+    }
+
+    private static double hitRate(long hits, long misses) {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    private static String normalize(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,246 @@
+package com.iongroup.backend.service;
+
+import com.iongroup.library.registry.OperationDescriptor;
+import com.iongroup.library.registry.OperationRegistry;
+import org.flowable.bpmn.model.BpmnModel;
+import org.flowable.bpmn.model.ExclusiveGateway;
+import org.flowable.bpmn.model.ExtensionElement;
+import org.flowable.bpmn.model.FlowElement;
+import org.flowable.bpmn.model.InclusiveGateway;
+import org.flowable.bpmn.model.ParallelGateway;
+import org.flowable.bpmn.model.Process;
+import org.flowable.bpmn.model.SequenceFlow;
+import org.flowable.bpmn.model.ServiceTask;
+import org.flowable.bpmn.model.StartEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service for dry-running generated BPMN models without a process engine.
+ * Walks the model in memory and resolves each service task through its
+ * OperationDescriptor, calling a SimulationStub instead of the real delegate.
+ */
+@Service
+public class FlowSimulationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlowSimulationService.class);
+
+    private final OperationRegistry operationRegistry;
+    private final Map<String, SimulationStub> stubsByOperationId = new HashMap<>();
+
+    public FlowSimulationService(OperationRegistry operationRegistry, ObjectProvider<SimulationStub> stubs) {
+        this.operationRegistry = operationRegistry;
+        stubs.orderedStream().forEach(stub -> stubsByOperationId.putIfAbsent(stub.getOperationId(), stub));
+    }
+
+    /**
+     * Simulate the first process of the model, mirroring what the engine would start.
+     *
+     * @param bpmnModel        the enriched BPMN model
+     * @param initialVariables variables the process is started with
+     * @return result map with the final variables and the visited element trace
+     */
+    public Map<String, Object> simulate(BpmnModel bpmnModel, Map<String, Object> initialVariables) {
+        long startNanos = System.nanoTime();
+
+        Process process = bpmnModel.getProcesses().get(0);
+        Map<String, OperationDescriptor> operationsById = new HashMap<>();
+        Map<String, OperationDescriptor> operationsByClass = new HashMap<>();
+        for (OperationDescriptor operation : operationRegistry.getAllOperations()) {
+            operationsById.put(operation.getId(), operation);
+            operationsByClass.putIfAbsent(operation.getImplementationClass(), operation);
+        }
+
+        // Index elements and flows once, the model from BpmnJsonConverter does not always wire them
+        Map<String, FlowElement> elementsById = new HashMap<>();
+        Map<String, List<SequenceFlow>> outgoingFlows = new HashMap<>();
+        Map<String, Integer> incomingCounts = new HashMap<>();
+        for (FlowElement element : process.getFlowElements()) {
+            elementsById.put(element.getId(), element);
+            if (element instanceof SequenceFlow) {
+                SequenceFlow flow = (SequenceFlow) element;
+                outgoingFlows.computeIfAbsent(flow.getSourceRef(), key -> new ArrayList<>()).add(flow);
+                incomingCounts.merge(flow.getTargetRef(), 1, Integer::sum);
+            }
+        }
+
+        Map<String, Object> variables = new LinkedHashMap<>(initialVariables);
+        List<Map<String, Object>> trace = new ArrayList<>();
+        Deque<FlowElement> pending = new ArrayDeque<>(process.findFlowElementsOfType(StartEvent.class, false));
+        Set<String> visited = new HashSet<>();
+        // Joins only run once every incoming branch has arrived, as in the engine
+        Map<String, Integer> arrivals = new HashMap<>();
+        Set<String> waitingJoins = new LinkedHashSet<>();
+
+        while (true) {
+            if (pending.isEmpty()) {
+                // Nothing else can reach a waiting inclusive join now, so it continues with the branches it has
+                String released = null;
+                for (String joinId : waitingJoins) {
+                    if (elementsById.get(joinId) instanceof InclusiveGateway) {
+                        released = joinId;
+                        break;
+                    }
+                }
+                if (released == null) {
+                    break;
+                }
+                waitingJoins.remove(released);
+                arrivals.remove(released);
+                pending.add(elementsById.get(released));
+                continue;
+            }
+
+            FlowElement element = pending.poll();
+            if (!visited.add(element.getId())) {
+                continue;
+            }
+
+            Map<String, Object> step = new LinkedHashMap<>();
+            step.put("elementId", element.getId());
+            step.put("elementType", element.getClass().getSimpleName());
+            if (element.getName() != null) {
+                step.put("name", element.getName());
+            }
+            if (element instanceof ServiceTask) {
+                simulateServiceTask((ServiceTask) element, operationsById, operationsByClass, variables, step);
+            }
+            trace.add(step);
+
+            for (SequenceFlow flow : selectFlows(element, outgoingFlows.getOrDefault(element.getId(), List.of()))) {
+                FlowElement target = elementsById.get(flow.getTargetRef());
+                if (target == null) {
+                    continue;
+                }
+                int expected = incomingCounts.getOrDefault(target.getId(), 0);
+                if (isJoin(target) && expected > 1) {
+                    int arrived = arrivals.merge(target.getId(), 1, Integer::sum);
+                    if (arrived < expected) {
+                        waitingJoins.add(target.getId());
+                        continue;
+                    }
+                    waitingJoins.remove(target.getId());
+                    arrivals.remove(target.getId());
+                }
+                pending.add(target);
+            }
+        }
+
+        Map<String, Object> results = new HashMap<>();
+        results.put("simulated", true);
+        results.put("processKey", process.getId());
+        results.put("processVariables", variables);
+        results.put("trace", trace);
+        if (!waitingJoins.isEmpty()) {
+            // Parallel joins whose branches never all arrived; the engine would wait here too
+            results.put("waitingJoins", new ArrayList<>(waitingJoins));
+        }
+        results.put("durationMicros", (System.nanoTime() - startNanos) / 1_000);
+
+        logger.debug("Simulated process '{}' in {} us, {} elements visited",
+                process.getId(), results.get("durationMicros"), trace.size());
+        return results;
+    }
+
+    /**
+     * Resolve a service task to its operation and apply the stub outputs to the variables
+     */
+    private void simulateServiceTask(ServiceTask task,
+                                     Map<String, OperationDescriptor> operationsById,
+                                     Map<String, OperationDescriptor> operationsByClass,
+                                     Map<String, Object> variables,
+                                     Map<String, Object> step) {
+        OperationDescriptor operation = null;
+        List<ExtensionElement> delegationIds = task.getExtensionElements().get("delegationId");
+        if (delegationIds != null && !delegationIds.isEmpty()) {
+            operation = operationsById.get(delegationIds.get(0).getElementText());
+        }
+        if (operation == null && task.getImplementation() != null) {
+            operation = operationsByClass.get(task.getImplementation());
+        }
+
+        if (operation == null) {
+            step.put("status", "UNRESOLVED");
+            return;
+        }
+
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        List<String> missingInputs = new ArrayList<>();
+        for (String input : operation.getInputs()) {
+            if (variables.containsKey(input)) {
+                inputs.put(input, variables.get(input));
+            } else {
+                missingInputs.add(input);
+            }
+        }
+
+        SimulationStub stub = stubsByOperationId.get(operation.getId());
+        Map<String, Object> outputs = stub != null
+                ? stub.execute(operation, inputs)
+                : defaultOutputs(operation, inputs);
+        variables.putAll(outputs);
+
+        step.put("operationId", operation.getId());
+        step.put("implementationClass", operation.getImplementationClass());
+        step.put("inputs", inputs);
+        step.put("missingInputs", missingInputs);
+        step.put("outputs", outputs);
+        step.put("status", "COMPLETED");
+    }
+
+    /**
+     * Default stub: pass through outputs that are also inputs, placeholder for the rest
+     */
+    private Map<String, Object> defaultOutputs(OperationDescriptor operation, Map<String, Object> inputs) {
+        Map<String, Object> outputs = new LinkedHashMap<>();
+        for (String output : operation.getOutputs()) {
+            outputs.put(output, inputs.containsKey(output)
+                    ? inputs.get(output)
+                    : operation.getId() + "." + output);
+        }
+        return outputs;
+    }
+
+    private boolean isJoin(FlowElement element) {
+        return element instanceof ParallelGateway || element instanceof InclusiveGateway;
+    }
+
+    /**
+     * Choose the flows taken from an element; exclusive and inclusive gateways take
+     * their default flow (or the first one) since conditions are not evaluated
+     */
+    private List<SequenceFlow> selectFlows(FlowElement element, List<SequenceFlow> flows) {
+        if (flows.size() <= 1) {
+            return flows;
+        }
+
+        String defaultFlow = null;
+        if (element instanceof ExclusiveGateway) {
+            defaultFlow = ((ExclusiveGateway) element).getDefaultFlow();
+        } else if (element instanceof InclusiveGateway) {
+            defaultFlow = ((InclusiveGateway) element).getDefaultFlow();
+        } else {
+            return flows;
+        }
+
+        for (SequenceFlow flow : flows) {
+            if (flow.getId().equals(defaultFlow)) {
+                return List.of(flow);
+            }
+        }
+        return List.of(flows.get(0));
+    }
+}
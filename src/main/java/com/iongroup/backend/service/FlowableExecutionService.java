@@ -0,0 +1,328 @@
+package com.iongroup.backend.service;
+
+import com.iongroup.backend.config.FlowExecutionProperties;
+import com.iongroup.backend.profiling.StageProfiler;
+import jakarta.annotation.PreDestroy;
+import org.flowable.common.engine.api.delegate.event.FlowableEngineEventType;
+import org.flowable.common.engine.impl.cfg.TransactionState;
+import org.flowable.engine.HistoryService;
+import org.flowable.engine.ManagementService;
+import org.flowable.engine.ProcessEngine;
+import org.flowable.engine.ProcessEngineConfiguration;
+import org.flowable.engine.RepositoryService;
+import org.flowable.engine.RuntimeService;
+import org.flowable.engine.delegate.event.AbstractFlowableEngineEventListener;
+import org.flowable.engine.delegate.event.FlowableEngineEntityEvent;
+import org.flowable.engine.history.HistoricProcessInstance;
+import org.flowable.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.flowable.engine.repository.Deployment;
+import org.flowable.engine.repository.ProcessDefinition;
+import org.flowable.engine.runtime.ProcessInstance;
+import org.flowable.variable.api.history.HistoricVariableInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Service owning the shared in-memory Flowable engine used to run generated processes.
+ * Supports synchronous execution and execution of async service tasks on the
+ * engine's async executor.
+ */
+@Service
+public class FlowableExecutionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlowableExecutionService.class);
+
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private final FlowExecutionProperties properties;
+    private final Map<String, CompletableFuture<String>> pendingCompletions = new ConcurrentHashMap<>();
+    // Deployment metadata per conversion key; engine-local, so it is not shared with peers.
+    // Evicted deployments are deleted from the engine.
+    private final Map<String, DeployedProcess> deployments;
+    private volatile ProcessEngine engine;
+
+    public FlowableExecutionService(FlowExecutionProperties properties) {
+        this.properties = properties;
+
+        int maxDeployments = properties.getMaxDeployments();
+        this.deployments = Collections.synchronizedMap(
+                new LinkedHashMap<String, DeployedProcess>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, DeployedProcess> eldest) {
+                        if (size() <= maxDeployments) {
+                            return false;
+                        }
+                        undeploy(eldest.getValue());
+                        return true;
+                    }
+                });
+    }
+
+    /**
+     * Deploy and start a generated process.
+     *
+     * @param conversionKey key of the conversion the XML came from; deployments are reused
+     *                      per key, null always deploys
+     * @param bpmnXml       the BPMN XML to deploy
+     * @param processKey    id of the process to start
+     * @param variables     variables to start the process with
+     * @param async         whether service tasks were marked async and run on the async executor
+     * @param profiler      records engine acquire, deploy, execute and history read stages
+     * @return result map with instance ids, status and (when finished) the process variables
+     */
+    public Map<String, Object> execute(String conversionKey, byte[] bpmnXml, String processKey,
+                                       Map<String, Object> variables, boolean async,
+                                       StageProfiler profiler) throws Exception {
+        profiler.start("engineAcquire");
+        ProcessEngine processEngine = getEngine();
+        RuntimeService runtimeService = processEngine.getRuntimeService();
+
+        profiler.start("deploy");
+        DeployedProcess deployed = conversionKey != null ? deployments.get(conversionKey) : null;
+        if (deployed == null) {
+            // Deploy without holding the map lock; concurrent first requests for the same
+            // graph may each deploy, the first one stored is reused and the others deleted
+            deployed = deploy(processEngine, bpmnXml, processKey);
+            if (conversionKey != null) {
+                DeployedProcess existing = deployments.putIfAbsent(conversionKey, deployed);
+                if (existing != null) {
+                    undeploy(deployed);
+                    deployed = existing;
+                }
+            }
+        }
+
+        // Start by definition id, other graphs may have deployed a newer version of the same key
+        logger.info("Starting process instance");
+        profiler.start("execute");
+        ProcessInstance processInstance = runtimeService.startProcessInstanceById(
+                deployed.processDefinitionId, variables);
+        String processInstanceId = processInstance.getProcessInstanceId();
+        logger.info("Process instance started, ID: {}", processInstanceId);
+
+        if (async) {
+            awaitCompletion(processInstanceId, properties.getAwaitCompletionMillis());
+        }
+
+        profiler.start("historyRead");
+        Map<String, Object> results = getProcessInstanceResult(processInstanceId);
+        profiler.stop();
+        results.put("deploymentId", deployed.deploymentId);
+        results.put("processKey", processKey);
+        results.put("executionMode", async ? "async" : "sync");
+        return results;
+    }
+
+    /**
+     * Deploy the BPMN and resolve the process definition it created
+     */
+    private DeployedProcess deploy(ProcessEngine processEngine, byte[] bpmnXml, String processKey) {
+        RepositoryService repositoryService = processEngine.getRepositoryService();
+
+        logger.info("Deploying BPMN process");
+        Deployment deployment = repositoryService.createDeployment()
+                .name("ui-generated-process")
+                .addInputStream("process.bpmn20.xml", new ByteArrayInputStream(bpmnXml))
+                .deploy();
+        logger.info("Deployment successful, deployment ID: {}", deployment.getId());
+
+        ProcessDefinition processDefinition = repositoryService.createProcessDefinitionQuery()
+                .deploymentId(deployment.getId())
+                .processDefinitionKey(processKey)
+                .singleResult();
+        if (processDefinition == null) {
+            repositoryService.deleteDeployment(deployment.getId(), true);
+            throw new IllegalStateException("Deployment contains no executable process with key '"
+                    + processKey + "'");
+        }
+        return new DeployedProcess(deployment.getId(), processDefinition.getId());
+    }
+
+    /**
+     * Delete a deployment that is no longer reused. Deployments with running instances
+     * cannot be deleted without cascading and are left in place.
+     */
+    private void undeploy(DeployedProcess deployed) {
+        try {
+            getEngine().getRepositoryService().deleteDeployment(deployed.deploymentId, false);
+            logger.debug("Deleted deployment {}", deployed.deploymentId);
+        } catch (RuntimeException e) {
+            logger.debug("Deployment {} kept, it still has running instances: {}",
+                    deployed.deploymentId, e.getMessage());
+        }
+    }
+
+    /**
+     * Collect the current status and variables of a process instance from history.
+     * Used to poll async executions that were still running when the request returned.
+     *
+     * @param processInstanceId the process instance id
+     * @return result map, or null if the instance is unknown
+     */
+    public Map<String, Object> getProcessInstanceResult(String processInstanceId) {
+        ProcessEngine processEngine = getEngine();
+        HistoryService historyService = processEngine.getHistoryService();
+        ManagementService managementService = processEngine.getManagementService();
+
+        HistoricProcessInstance historicInstance = historyService.createHistoricProcessInstanceQuery()
+                .processInstanceId(processInstanceId)
+                .singleResult();
+        if (historicInstance == null) {
+            return null;
+        }
+
+        Map<String, Object> results = new HashMap<>();
+        results.put("processInstanceId", processInstanceId);
+
+        String status;
+        if (historicInstance.getEndTime() != null) {
+            status = STATUS_COMPLETED;
+        } else if (managementService.createDeadLetterJobQuery().processInstanceId(processInstanceId).count() > 0) {
+            status = STATUS_FAILED;
+        } else {
+            status = STATUS_RUNNING;
+        }
+        results.put("status", status);
+
+        // Collect all process variables from history
+        List<HistoricVariableInstance> variables = historyService
+                .createHistoricVariableInstanceQuery()
+                .processInstanceId(processInstanceId)
+                .list();
+
+        Map<String, Object> processVariables = new HashMap<>();
+        for (HistoricVariableInstance var : variables) {
+            processVariables.put(var.getVariableName(), var.getValue());
+            logger.debug("Process variable: {} = {}", var.getVariableName(), var.getValue());
+        }
+        results.put("processVariables", processVariables);
+
+        return results;
+    }
+
+    /**
+     * Wait until the completion listener reports the instance finished, or the timeout passes
+     */
+    private void awaitCompletion(String processInstanceId, long timeoutMillis) throws Exception {
+        if (timeoutMillis <= 0) {
+            return;
+        }
+
+        CompletableFuture<String> completion = new CompletableFuture<>();
+        pendingCompletions.put(processInstanceId, completion);
+        try {
+            // The instance may have finished before the future was registered
+            HistoricProcessInstance historicInstance = getEngine().getHistoryService()
+                    .createHistoricProcessInstanceQuery()
+                    .processInstanceId(processInstanceId)
+                    .finished()
+                    .singleResult();
+            if (historicInstance == null) {
+                completion.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (TimeoutException e) {
+            logger.debug("Process instance {} still running after {} ms", processInstanceId, timeoutMillis);
+        } finally {
+            pendingCompletions.remove(processInstanceId);
+        }
+    }
+
+    private ProcessEngine getEngine() {
+        ProcessEngine current = engine;
+        if (current == null) {
+            synchronized (this) {
+                current = engine;
+                if (current == null) {
+                    current = buildEngine();
+                    engine = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private ProcessEngine buildEngine() {
+        logger.info("Initializing Flowable engine");
+        FlowExecutionProperties.AsyncExecutor executor = properties.getAsyncExecutor();
+
+        // Create in-memory Flowable engine
+        ProcessEngineConfigurationImpl cfg = (ProcessEngineConfigurationImpl) ProcessEngineConfiguration
+                .createStandaloneInMemProcessEngineConfiguration();
+        cfg.setJdbcUrl("jdbc:h2:mem:flowable;DB_CLOSE_DELAY=1000");
+        cfg.setJdbcDriver("org.h2.Driver");
+        cfg.setJdbcUsername("sa");
+        cfg.setJdbcPassword("");
+        cfg.setDatabaseSchemaUpdate(ProcessEngineConfiguration.DB_SCHEMA_UPDATE_TRUE);
+        cfg.setProcessDefinitionCacheLimit(properties.getMaxDeployments());
+
+        cfg.setAsyncExecutorActivate(true);
+        cfg.setAsyncExecutorCorePoolSize(executor.getCorePoolSize());
+        cfg.setAsyncExecutorMaxPoolSize(executor.getMaxPoolSize());
+        cfg.setAsyncExecutorThreadPoolQueueSize(executor.getQueueSize());
+        cfg.setAsyncExecutorMaxAsyncJobsDuePerAcquisition(executor.getMaxAsyncJobsDuePerAcquisition());
+        cfg.setAsyncExecutorMaxTimerJobsPerAcquisition(executor.getMaxTimerJobsPerAcquisition());
+        cfg.setAsyncExecutorDefaultAsyncJobAcquireWaitTime(executor.getDefaultAsyncJobAcquireWaitTimeMillis());
+        cfg.setAsyncExecutorNumberOfRetries(executor.getNumberOfRetries());
+
+        ProcessEngine processEngine = cfg.buildProcessEngine();
+        processEngine.getRuntimeService().addEventListener(new CompletionListener(),
+                FlowableEngineEventType.PROCESS_COMPLETED);
+        return processEngine;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (engine != null) {
+            engine.close();
+            logger.debug("Flowable engine closed");
+        }
+    }
+
+    private static class DeployedProcess {
+        private final String deploymentId;
+        private final String processDefinitionId;
+
+        private DeployedProcess(String deploymentId, String processDefinitionId) {
+            this.deploymentId = deploymentId;
+            this.processDefinitionId = processDefinitionId;
+        }
+    }
+
+    /**
+     * Completes pending futures once a process completion has been committed
+     */
+    private class CompletionListener extends AbstractFlowableEngineEventListener {
+
+        @Override
+        protected void processCompleted(FlowableEngineEntityEvent event) {
+            CompletableFuture<String> completion = pendingCompletions.get(event.getProcessInstanceId());
+            if (completion != null) {
+                completion.complete(event.getProcessInstanceId());
+            }
+        }
+
+        @Override
+        public boolean isFireOnTransactionLifecycleEvent() {
+            return true;
+        }
+
+        @Override
+        public String getOnTransaction() {
+            return TransactionState.COMMITTED.name();
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package com.iongroup.backend.service;
+
+import com.iongroup.backend.model.OperationPlan;
+import com.iongroup.library.registry.OperationDescriptor;
+import com.iongroup.library.registry.OperationRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Service for planning operation chains from available inputs to target outputs.
+ * Keeps a variable to producer index over the OperationRegistry that is updated
+ * incrementally when registered operations change, and memoizes plans until then.
+ * Registry changes are detected by operation count; call invalidate() after
+ * replacing an operation under the same id.
+ */
+@Service
+public class OperationPlannerService {
+
+    private static final int MAX_MEMOIZED_PLANS = 1000;
+
+    private final OperationRegistry operationRegistry;
+
+    // Producer graph: variable -> operations writing it, in registration order
+    private final Map<String, Map<String, OperationDescriptor>> producersByVariable = new HashMap<>();
+    private final Map<String, OperationDescriptor> operationsById = new HashMap<>();
+    private final Map<String, Integer> registrationOrder = new HashMap<>();
+    private final Map<PlanKey, OperationPlan> plans = new ConcurrentHashMap<>();
+    // Index writes take the write lock, plan computation the read lock; memo hits take neither.
+    // A refresh writes indexedOperationCount last, so memo hits never see plans of an older index.
+    private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+    private volatile int indexedOperationCount = -1;
+    private volatile int invalidations;
+    private volatile int indexedInvalidations;
+    private int nextRegistration;
+
+    public OperationPlannerService(OperationRegistry operationRegistry) {
+        this.operationRegistry = operationRegistry;
+    }
+
+    /**
+     * Plan the operations needed to produce the target outputs.
+     * The chain minimizes depth (sequential steps): each variable is produced by the
+     * operation that can run earliest, ties going to the operation registered first.
+     * Operations that can be dropped without breaking the chain or making it deeper
+     * are then removed. The operation count is not minimized beyond that, so a deeper
+     * chain with fewer operations is never preferred.
+     *
+     * @param availableInputs variables known before the chain starts
+     * @param targetOutputs   variables the chain must produce
+     * @return the ordered chain, or an unresolved plan listing the inputs that are missing
+     */
+    public OperationPlan plan(Collection<String> availableInputs, Collection<String> targetOutputs) {
+        Set<String> available = new TreeSet<>(availableInputs);
+        Set<String> targets = new TreeSet<>(targetOutputs);
+        PlanKey key = new PlanKey(List.copyOf(available), List.copyOf(targets));
+
+        if (!isIndexStale()) {
+            OperationPlan plan = plans.get(key);
+            if (plan != null) {
+                return plan;
+            }
+        }
+
+        if (isIndexStale()) {
+            indexLock.writeLock().lock();
+            try {
+                refreshIndex();
+            } finally {
+                indexLock.writeLock().unlock();
+            }
+        }
+
+        indexLock.readLock().lock();
+        try {
+            OperationPlan plan = plans.get(key);
+            if (plan == null) {
+                if (plans.size() >= MAX_MEMOIZED_PLANS) {
+                    plans.clear();
+                }
+                plan = computePlan(available, targets);
+                plans.put(key, plan);
+            }
+            return plan;
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Force the next plan to resync with the registry, for changes that keep the
+     * operation count the same (an operation replaced under its id).
+     */
+    public synchronized void invalidate() {
+        invalidations++;
+    }
+
+    /**
+     * Build a linear UI graph (start, one service task per operation, end) for a resolved plan.
+     *
+     * @param plan a resolved plan
+     * @return graph with nodes and edges, ready for the convert endpoint
+     */
+    public Map<String, Object> toUiGraph(OperationPlan plan) {
+        List<Map<String, Object>> nodes = new ArrayList<>();
+        List<Map<String, Object>> edges = new ArrayList<>();
+
+        nodes.add(uiNode("start", "start", "Start", null));
+        String previous = "start";
+        int index = 1;
+        for (OperationDescriptor operation : plan.getOperations()) {
+            String nodeId = "task-" + index++;
+            nodes.add(uiNode(nodeId, "serviceTask", operation.getId(), operation));
+            edges.add(uiEdge(previous, nodeId));
+            previous = nodeId;
+        }
+        nodes.add(uiNode("end", "end", "End", null));
+        edges.add(uiEdge(previous, "end"));
+
+        Map<String, Object> graph = new LinkedHashMap<>();
+        graph.put("nodes", nodes);
+        graph.put("edges", edges);
+        return graph;
+    }
+
+    private OperationPlan computePlan(Set<String> available, Set<String> targets) {
+        // 1. Walk the producer graph backwards from the targets to find relevant operations
+        Map<String, OperationDescriptor> relevant = new LinkedHashMap<>();
+        Set<String> visited = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>(targets);
+        while (!pending.isEmpty()) {
+            String variable = pending.poll();
+            if (available.contains(variable) || !visited.add(variable)) {
+                continue;
+            }
+            for (OperationDescriptor producer : producers(variable)) {
+                if (relevant.putIfAbsent(producer.getId(), producer) == null) {
+                    pending.addAll(producer.getInputs());
+                }
+            }
+        }
+
+        // 2. Level variables forward from the available inputs, using relevant operations only
+        Map<String, List<OperationDescriptor>> consumers = new HashMap<>();
+        Map<String, Integer> remainingInputs = new HashMap<>();
+        Map<String, Integer> operationLevel = new HashMap<>();
+        Map<String, Integer> variableLevel = new HashMap<>();
+        Deque<String> ready = new ArrayDeque<>();
+
+        for (String variable : available) {
+            variableLevel.put(variable, 0);
+            ready.add(variable);
+        }
+        for (OperationDescriptor operation : relevant.values()) {
+            Set<String> inputs = new HashSet<>(operation.getInputs());
+            if (inputs.isEmpty()) {
+                markRun(operation, 1, operationLevel, variableLevel, ready);
+                continue;
+            }
+            remainingInputs.put(operation.getId(), inputs.size());
+            for (String input : inputs) {
+                consumers.computeIfAbsent(input, k -> new ArrayList<>()).add(operation);
+            }
+        }
+        // Variables are dequeued in level order, so the last input to arrive has the highest level
+        while (!ready.isEmpty()) {
+            String variable = ready.poll();
+            int level = variableLevel.get(variable);
+            for (OperationDescriptor operation : consumers.getOrDefault(variable, List.of())) {
+                if (remainingInputs.merge(operation.getId(), -1, Integer::sum) == 0) {
+                    markRun(operation, level + 1, operationLevel, variableLevel, ready);
+                }
+            }
+        }
+
+        List<String> unreachable = new ArrayList<>();
+        for (String target : targets) {
+            if (!variableLevel.containsKey(target)) {
+                unreachable.add(target);
+            }
+        }
+        if (!unreachable.isEmpty()) {
+            // Report the leaf variables nothing produces; fall back to the targets for cycles
+            Set<String> missing = new TreeSet<>();
+            for (String variable : visited) {
+                if (!available.contains(variable) && producers(variable).isEmpty()) {
+                    missing.add(variable);
+                }
+            }
+            return new OperationPlan(false, List.of(), missing.isEmpty() ? unreachable : new ArrayList<>(missing));
+        }
+
+        // 3. Extract the chain, resolving the latest variables first so shared producers are reused
+        Map<String, OperationDescriptor> chosen = new LinkedHashMap<>();
+        Set<String> satisfied = new HashSet<>(available);
+        PriorityQueue<String> needed = new PriorityQueue<>(
+                Comparator.comparing((String variable) -> variableLevel.get(variable)).reversed()
+                        .thenComparing(Comparator.naturalOrder()));
+        needed.addAll(targets);
+
+        while (!needed.isEmpty()) {
+            String variable = needed.poll();
+            if (satisfied.contains(variable)) {
+                continue;
+            }
+
+            OperationDescriptor best = null;
+            for (OperationDescriptor producer : producers(variable)) {
+                Integer level = operationLevel.get(producer.getId());
+                if (level == null) {
+                    continue;
+                }
+                if (best == null || level < operationLevel.get(best.getId())
+                        || (level.equals(operationLevel.get(best.getId()))
+                            && producer.getInputs().size() < best.getInputs().size())) {
+                    best = producer;
+                }
+            }
+
+            chosen.put(best.getId(), best);
+            satisfied.addAll(best.getOutputs());
+            for (String input : best.getInputs()) {
+                if (!satisfied.contains(input)) {
+                    needed.add(input);
+                }
+            }
+        }
+
+        List<OperationDescriptor> chain = new ArrayList<>(chosen.values());
+        chain.sort(Comparator.comparing((OperationDescriptor operation) -> operationLevel.get(operation.getId()))
+                .thenComparing(operation -> registrationOrder.get(operation.getId())));
+        return new OperationPlan(true, removeRedundant(chain, available, targets), List.of());
+    }
+
+    /**
+     * Drop operations whose outputs are also produced by others in the chain, latest
+     * first, as long as the chain stays valid and no deeper
+     */
+    private List<OperationDescriptor> removeRedundant(List<OperationDescriptor> chain,
+                                                      Set<String> available, Set<String> targets) {
+        int depth = depth(chain, available, targets);
+        List<OperationDescriptor> pruned = new ArrayList<>(chain);
+        for (int i = pruned.size() - 1; i >= 0; i--) {
+            List<OperationDescriptor> candidate = new ArrayList<>(pruned);
+            candidate.remove(i);
+            if (depth(candidate, available, targets) <= depth) {
+                pruned = candidate;
+            }
+        }
+        return pruned;
+    }
+
+    /**
+     * Sequential steps of a chain run in order, or MAX_VALUE if an input or target is never produced
+     */
+    private int depth(List<OperationDescriptor> chain, Set<String> available, Set<String> targets) {
+        Map<String, Integer> producedAt = new HashMap<>();
+        for (String variable : available) {
+            producedAt.put(variable, 0);
+        }
+
+        int depth = 0;
+        for (OperationDescriptor operation : chain) {
+            int level = 0;
+            for (String input : operation.getInputs()) {
+                Integer inputLevel = producedAt.get(input);
+                if (inputLevel == null) {
+                    return Integer.MAX_VALUE;
+                }
+                level = Math.max(level, inputLevel);
+            }
+            level++;
+            for (String output : operation.getOutputs()) {
+                producedAt.merge(output, level, Math::min);
+            }
+            depth = Math.max(depth, level);
+        }
+
+        for (String target : targets) {
+            if (!producedAt.containsKey(target)) {
+                return Integer.MAX_VALUE;
+            }
+        }
+        return depth;
+    }
+
+    private void markRun(OperationDescriptor operation, int level, Map<String, Integer> operationLevel,
+                         Map<String, Integer> variableLevel, Deque<String> ready) {
+        operationLevel.put(operation.getId(), level);
+        for (String output : operation.getOutputs()) {
+            if (variableLevel.putIfAbsent(output, level) == null) {
+                ready.add(output);
+            }
+        }
+    }
+
+    private Collection<OperationDescriptor> producers(String variable) {
+        Map<String, OperationDescriptor> producers = producersByVariable.get(variable);
+        return producers != null ? producers.values() : List.of();
+    }
+
+    private boolean isIndexStale() {
+        return invalidations != indexedInvalidations
+                || operationRegistry.getOperationCount() != indexedOperationCount;
+    }
+
+    /**
+     * Sync the producer index with the registry, touching only operations that were
+     * added, replaced or removed, and drop memoized plans if anything changed.
+     * The index is only marked current once plans are cleared and the index is rebuilt.
+     */
+    private void refreshIndex() {
+        if (!isIndexStale()) {
+            return;
+        }
+        int seenInvalidations = invalidations;
+        List<OperationDescriptor> operations = operationRegistry.getAllOperations();
+        boolean changed = false;
+
+        for (OperationDescriptor operation : operations) {
+            OperationDescriptor indexed = operationsById.get(operation.getId());
+            if (indexed != operation) {
+                if (indexed != null) {
+                    unindex(indexed);
+                }
+                index(operation);
+                changed = true;
+            }
+        }
+
+        if (operationsById.size() != operations.size()) {
+            Set<String> currentIds = new HashSet<>();
+            for (OperationDescriptor operation : operations) {
+                currentIds.add(operation.getId());
+            }
+            for (OperationDescriptor stale : new ArrayList<>(operationsById.values())) {
+                if (!currentIds.contains(stale.getId())) {
+                    unindex(stale);
+                    registrationOrder.remove(stale.getId());
+                }
+            }
+            changed = true;
+        }
+
+        if (changed) {
+            plans.clear();
+        }
+        indexedInvalidations = seenInvalidations;
+        indexedOperationCount = operations.size();
+    }
+
+    private void index(OperationDescriptor operation) {
+        operationsById.put(operation.getId(), operation);
+        registrationOrder.putIfAbsent(operation.getId(), nextRegistration++);
+        for (String output : new LinkedHashSet<>(operation.getOutputs())) {
+            producersByVariable.computeIfAbsent(output, k -> new LinkedHashMap<>())
+                    .put(operation.getId(), operation);
+        }
+    }
+
+    private void unindex(OperationDescriptor operation) {
+        operationsById.remove(operation.getId());
+        for (String output : operation.getOutputs()) {
+            Map<String, OperationDescriptor> producers = producersByVariable.get(output);
+            if (producers != null) {
+                producers.remove(operation.getId());
+                if (producers.isEmpty()) {
+                    producersByVariable.remove(output);
+                }
+            }
+        }
+    }
+
+    private Map<String, Object> uiNode(String id, String type, String label, OperationDescriptor operation) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("label", label);
+        if (operation != null) {
+            data.put("delegationId", operation.getId());
+            data.put("delegationType", String.valueOf(operation.getDelegationType()));
+            data.put("implementation", operation.getImplementationClass());
+        }
+
+        Map<String, Object> node = new LinkedHashMap<>();
+        node.put("id", id);
+        node.put("type", type);
+        node.put("data", data);
+        return node;
+    }
+
+    private Map<String, Object> uiEdge(String source, String target) {
+        Map<String, Object> edge = new LinkedHashMap<>();
+        edge.put("id", source + "-" + target);
+        edge.put("source", source);
+        edge.put("target", target);
+        return edge;
+    }
+
+    /**
+     * Memo key: sorted available inputs and sorted targets
+     */
+    private record PlanKey(List<String> available, List<String> targets) {}
+}
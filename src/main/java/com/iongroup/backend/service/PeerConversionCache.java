@@ -0,0 +1,49 @@
+package com.iongroup.backend.service;
+
+import com.iongroup.backend.model.ConversionCacheEntry;
+
+import java.util.Map;
+
+/**
+ * Conversion cache whose store is reachable by other backend instances.
+ * Backs the peer endpoints of the cache controller.
+ */
+public interface PeerConversionCache extends ConversionCache {
+
+    /**
+     * Header peers send the shared token in.
+     */
+    String PEER_TOKEN_HEADER = "X-Flow-Cache-Token";
+
+    /**
+     * Check the token a peer presented.
+     *
+     * @param token value of the peer token header, may be null
+     * @return true if the token grants peer access
+     */
+    boolean isAuthorizedPeer(String token);
+
+    /**
+     * Look up an entry in this instance's store only, signed for the requesting peer.
+     *
+     * @param key the conversion key
+     * @return a signed copy of the stored entry, or null
+     */
+    ConversionCacheEntry getForPeer(String key);
+
+    /**
+     * Store an entry a peer converted for a key this instance owns.
+     *
+     * @param key   the conversion key
+     * @param entry the signed entry
+     * @return true if the signature matched and the entry was stored
+     */
+    boolean putFromPeer(String key, ConversionCacheEntry entry);
+
+    /**
+     * Aggregate the statistics of this instance and every reachable peer.
+     *
+     * @return cluster-wide totals and hit rate plus the per-node statistics
+     */
+    Map<String, Object> getClusterStats();
+}
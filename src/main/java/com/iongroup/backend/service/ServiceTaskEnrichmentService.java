@@ -0,0 +1,117 @@
+package com.iongroup.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.flowable.bpmn.model.BpmnModel;
+import org.flowable.bpmn.model.ExtensionElement;
+import org.flowable.bpmn.model.FlowElement;
+import org.flowable.bpmn.model.Process;
+import org.flowable.bpmn.model.ServiceTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Service for copying delegation settings from the Flowable JSON shapes onto the
+ * service tasks of the converted BPMN model as flowable extension elements.
+ */
+@Service
+public class ServiceTaskEnrichmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceTaskEnrichmentService.class);
+    private static final String FLOWABLE_NAMESPACE = "http://flowable.org/bpmn";
+    private static final String FLOWABLE_NAMESPACE_PREFIX = "flowable";
+
+    /**
+     * Enrich BPMN model with service task configuration from Flowable JSON.
+     * Shapes are walked once and each top-level service task is found through the
+     * process's id index, without an intermediate map of all shape properties.
+     *
+     * @param bpmnModel    model converted from the Flowable JSON
+     * @param flowableJson the Flowable JSON the model was converted from
+     * @param async        mark all service tasks, subprocesses included, async so they run
+     *                     on the async executor
+     */
+    public void enrich(BpmnModel bpmnModel, ObjectNode flowableJson, boolean async) {
+        logger.debug("Enriching BPMN model with extension elements from Flowable JSON");
+        List<Process> processes = bpmnModel.getProcesses();
+
+        // Mark every service task async, including ones in subprocesses or without a matching shape
+        if (async) {
+            for (Process process : processes) {
+                for (ServiceTask task : process.findFlowElementsOfType(ServiceTask.class, true)) {
+                    task.setAsynchronous(true);
+                }
+            }
+        }
+
+        JsonNode childShapes = flowableJson.get("childShapes");
+        if (childShapes == null || !childShapes.isArray()) {
+            return;
+        }
+
+        for (JsonNode shape : childShapes) {
+            JsonNode props = shape.get("properties");
+            JsonNode resourceId = shape.get("resourceId");
+            if (props == null || !props.isObject() || resourceId == null) {
+                continue;
+            }
+            ServiceTask task = findServiceTask(processes, resourceId.asText());
+            if (task == null) {
+                continue;
+            }
+
+            // Add delegationId as extension element if present
+            String delegationId = propertyText(props, "delegationId");
+            if (delegationId != null && !delegationId.isBlank()) {
+                addExtensionElement(task, "delegationId", delegationId);
+                logger.debug("Added delegationId '{}' to service task '{}'", delegationId, task.getId());
+            }
+
+            // Add other extension elements
+            addExtensionElement(task, "delegationType", propertyText(props, "delegationType"));
+            addExtensionElement(task, "selectedFields", propertyText(props, "selectedFields"));
+            addExtensionElement(task, "requiredFields", propertyText(props, "requiredFields"));
+        }
+    }
+
+    /**
+     * Find a top-level service task by id across the model's processes. The recursive
+     * lookup is a map access; the non-recursive one scans the element list.
+     */
+    private ServiceTask findServiceTask(List<Process> processes, String id) {
+        for (Process process : processes) {
+            FlowElement element = process.getFlowElement(id, true);
+            if (element instanceof ServiceTask && element.getParentContainer() == process) {
+                return (ServiceTask) element;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Text of a shape property, or null when the property is absent
+     */
+    private String propertyText(JsonNode props, String name) {
+        JsonNode value = props.get(name);
+        return value != null ? value.asText() : null;
+    }
+
+    /**
+     * Helper to add extension element to a service task
+     */
+    private void addExtensionElement(ServiceTask task, String name, String value) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+
+        ExtensionElement element = new ExtensionElement();
+        element.setNamespace(FLOWABLE_NAMESPACE);
+        element.setNamespacePrefix(FLOWABLE_NAMESPACE_PREFIX);
+        element.setName(name);
+        element.setElementText(value);
+        task.addExtensionElement(element);
+    }
+}
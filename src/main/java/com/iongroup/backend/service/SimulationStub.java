@@ -0,0 +1,29 @@
+package com.iongroup.backend.service;
+
+import com.iongroup.library.registry.OperationDescriptor;
+
+import java.util.Map;
+
+/**
+ * Stand-in for a delegate implementation during dry-run simulation.
+ * Register an implementation as a Spring bean to replace the default stub
+ * for a specific operation.
+ */
+public interface SimulationStub {
+
+    /**
+     * Get the id of the operation this stub replaces.
+     *
+     * @return operation id as registered in the OperationRegistry
+     */
+    String getOperationId();
+
+    /**
+     * Produce output variables for a simulated service task.
+     *
+     * @param operation the descriptor of the operation being simulated
+     * @param inputs    the declared inputs of the operation resolved from the current variables
+     * @return variables to merge into the process variables
+     */
+    Map<String, Object> execute(OperationDescriptor operation, Map<String, Object> inputs);
+}
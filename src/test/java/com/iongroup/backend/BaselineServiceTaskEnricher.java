@@ -0,0 +1,81 @@
+package com.iongroup.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.flowable.bpmn.model.BpmnModel;
+import org.flowable.bpmn.model.ExtensionElement;
+import org.flowable.bpmn.model.ServiceTask;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The original enrichServiceTasks from FlowableConversionController, kept unchanged
+ * as the reference for output comparisons and benchmarks: collects every shape's
+ * properties into a map, then walks the flow elements.
+ */
+public final class BaselineServiceTaskEnricher {
+
+    private BaselineServiceTaskEnricher() {}
+
+    public static void enrich(BpmnModel bpmnModel, ObjectNode flowableJson) {
+        // Extract task properties from Flowable JSON
+        Map<String, ObjectNode> taskProperties = new HashMap<>();
+        JsonNode childShapes = flowableJson.get("childShapes");
+        if (childShapes != null && childShapes.isArray()) {
+            for (JsonNode shape : childShapes) {
+                String resourceId = shape.get("resourceId").asText();
+                JsonNode props = shape.get("properties");
+                if (props != null && props.isObject()) {
+                    taskProperties.put(resourceId, (ObjectNode) props);
+                }
+            }
+        }
+
+        // Enrich service tasks in BPMN model
+        bpmnModel.getProcesses().forEach(process ->
+            process.getFlowElements().forEach(element -> {
+                if (element instanceof ServiceTask) {
+                    ServiceTask task = (ServiceTask) element;
+                    ObjectNode props = taskProperties.get(element.getId());
+
+                    if (props != null) {
+                        String delegationId = props.has("delegationId")
+                            ? props.get("delegationId").asText()
+                            : null;
+
+                        if (delegationId != null && !delegationId.isBlank()) {
+                            addExtensionElement(task, "delegationId", delegationId);
+                        }
+
+                        if (props.has("delegationType")) {
+                            addExtensionElement(task, "delegationType",
+                                props.get("delegationType").asText());
+                        }
+                        if (props.has("selectedFields")) {
+                            addExtensionElement(task, "selectedFields",
+                                props.get("selectedFields").asText());
+                        }
+                        if (props.has("requiredFields")) {
+                            addExtensionElement(task, "requiredFields",
+                                props.get("requiredFields").asText());
+                        }
+                    }
+                }
+            })
+        );
+    }
+
+    private static void addExtensionElement(ServiceTask task, String name, String value) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+
+        ExtensionElement element = new ExtensionElement();
+        element.setNamespace("http://flowable.org/bpmn");
+        element.setNamespacePrefix("flowable");
+        element.setName(name);
+        element.setElementText(value);
+        task.addExtensionElement(element);
+    }
+}
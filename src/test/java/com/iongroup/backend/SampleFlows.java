@@ -0,0 +1,194 @@
+package com.iongroup.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.iongroup.library.registry.OperationDescriptor;
+import com.iongroup.library.registry.OperationRegistry;
+import org.flowable.bpmn.converter.BpmnXMLConverter;
+import org.flowable.bpmn.model.BpmnModel;
+import org.flowable.bpmn.model.EndEvent;
+import org.flowable.bpmn.model.ExtensionElement;
+import org.flowable.bpmn.model.FlowElement;
+import org.flowable.bpmn.model.FlowNode;
+import org.flowable.bpmn.model.GraphicInfo;
+import org.flowable.bpmn.model.ImplementationType;
+import org.flowable.bpmn.model.Process;
+import org.flowable.bpmn.model.SequenceFlow;
+import org.flowable.bpmn.model.ServiceTask;
+import org.flowable.bpmn.model.StartEvent;
+import org.flowable.editor.language.json.converter.BpmnJsonConverter;
+
+import java.util.List;
+
+/**
+ * BPMN models for the sample loan and card flows, built the way the converter
+ * and enrichServiceTasks shape them, for tests and benchmarks.
+ */
+public final class SampleFlows {
+
+    public static final List<String> LOAN_OPERATIONS =
+            List.of("StartLoanApplication", "CheckEligibility", "GetLoanPolicy", "CreateLoanOffer");
+    public static final List<String> CARD_OPERATIONS =
+            List.of("StartCardApplication", "GetAvailableCreditCards", "CreateCardOffer", "IssueCreditCard");
+
+    private SampleFlows() {}
+
+    public static BpmnModel loanFlow(OperationRegistry registry) {
+        return linearFlow("loanFlow", registry, LOAN_OPERATIONS);
+    }
+
+    public static BpmnModel cardFlow(OperationRegistry registry) {
+        return linearFlow("cardFlow", registry, CARD_OPERATIONS);
+    }
+
+    /**
+     * Start, one service task per operation in the given order, end.
+     */
+    public static BpmnModel linearFlow(String processId, OperationRegistry registry, List<String> operationIds) {
+        BpmnModel model = newModel(processId);
+        Process process = model.getMainProcess();
+
+        String previous = "start";
+        for (int i = 0; i < operationIds.size(); i++) {
+            String taskId = "task" + (i + 1);
+            add(process, serviceTask(taskId, operation(registry, operationIds.get(i))));
+            add(process, flow(previous, taskId));
+            previous = taskId;
+        }
+        add(process, flow(previous, "end"));
+        return model;
+    }
+
+    /**
+     * Start, n service tasks all running the given delegate class, end.
+     */
+    public static BpmnModel serviceTaskChain(String processId, int tasks, String implementationClass) {
+        BpmnModel model = newModel(processId);
+        Process process = model.getMainProcess();
+
+        String previous = "start";
+        for (int i = 1; i <= tasks; i++) {
+            String taskId = "task" + i;
+            ServiceTask task = new ServiceTask();
+            task.setId(taskId);
+            task.setName(taskId);
+            task.setImplementationType(ImplementationType.IMPLEMENTATION_TYPE_CLASS);
+            task.setImplementation(implementationClass);
+            add(process, task);
+            add(process, flow(previous, taskId));
+            previous = taskId;
+        }
+        add(process, flow(previous, "end"));
+        return model;
+    }
+
+    /**
+     * Empty executable process with a start and an end event.
+     */
+    public static BpmnModel newModel(String processId) {
+        BpmnModel model = new BpmnModel();
+        Process process = new Process();
+        process.setId(processId);
+        process.setExecutable(true);
+        model.addProcess(process);
+
+        StartEvent start = new StartEvent();
+        start.setId("start");
+        add(process, start);
+        EndEvent end = new EndEvent();
+        end.setId("end");
+        add(process, end);
+        return model;
+    }
+
+    public static ServiceTask serviceTask(String id, OperationDescriptor operation) {
+        ServiceTask task = new ServiceTask();
+        task.setId(id);
+        task.setName(operation.getId());
+        task.setImplementationType(ImplementationType.IMPLEMENTATION_TYPE_CLASS);
+        task.setImplementation(operation.getImplementationClass());
+
+        ExtensionElement delegationId = new ExtensionElement();
+        delegationId.setNamespace("http://flowable.org/bpmn");
+        delegationId.setNamespacePrefix("flowable");
+        delegationId.setName("delegationId");
+        delegationId.setElementText(operation.getId());
+        task.addExtensionElement(delegationId);
+        return task;
+    }
+
+    public static SequenceFlow flow(String source, String target) {
+        SequenceFlow flow = new SequenceFlow(source, target);
+        flow.setId(source + "-" + target);
+        return flow;
+    }
+
+    public static void add(Process process, FlowElement element) {
+        process.addFlowElement(element);
+    }
+
+    public static OperationDescriptor operation(OperationRegistry registry, String operationId) {
+        return registry.getAllOperations().stream()
+                .filter(operation -> operation.getId().equals(operationId))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown operation " + operationId));
+    }
+
+    public static byte[] toXml(BpmnModel model) {
+        return new BpmnXMLConverter().convertToXML(model);
+    }
+
+    /**
+     * Flowable JSON for a model, as the UI converter would produce it: shapes laid out
+     * left to right, and service task shapes carrying the delegation properties
+     * that enrichment copies onto the tasks.
+     */
+    public static ObjectNode toFlowableJson(BpmnModel model) {
+        layOut(model);
+        ObjectNode json = new BpmnJsonConverter().convertToJson(model);
+        for (JsonNode shape : json.get("childShapes")) {
+            if ("ServiceTask".equals(shape.path("stencil").path("id").asText())) {
+                ObjectNode properties = (ObjectNode) shape.get("properties");
+                properties.put("delegationId", properties.path("name").asText());
+                properties.put("delegationType", "SERVICE");
+                properties.put("selectedFields", "AMOUNT");
+                properties.put("requiredFields", "CUSTOMER_NAME,PAN");
+            }
+        }
+        return json;
+    }
+
+    /**
+     * Give every node and flow of the main process a position and wire incoming and
+     * outgoing flows, which BpmnJsonConverter.convertToJson needs and built models lack.
+     */
+    public static void layOut(BpmnModel model) {
+        Process process = model.getMainProcess();
+        double x = 0;
+        for (FlowElement element : process.getFlowElements()) {
+            if (element instanceof FlowNode) {
+                model.addGraphicInfo(element.getId(), graphicInfo(x, 0, 40, 80));
+                x += 120;
+            }
+        }
+        for (SequenceFlow flow : process.findFlowElementsOfType(SequenceFlow.class)) {
+            FlowNode source = (FlowNode) process.getFlowElement(flow.getSourceRef(), true);
+            FlowNode target = (FlowNode) process.getFlowElement(flow.getTargetRef(), true);
+            source.getOutgoingFlows().add(flow);
+            target.getIncomingFlows().add(flow);
+            GraphicInfo from = model.getGraphicInfo(source.getId());
+            GraphicInfo to = model.getGraphicInfo(target.getId());
+            model.addFlowGraphicInfoList(flow.getId(), List.of(
+                    graphicInfo(from.getX() + from.getWidth(), 20, 0, 0), graphicInfo(to.getX(), 20, 0, 0)));
+        }
+    }
+
+    private static GraphicInfo graphicInfo(double x, double y, double height, double width) {
+        GraphicInfo info = new GraphicInfo();
+        info.setX(x);
+        info.setY(y);
+        info.setHeight(height);
+        info.setWidth(width);
+        return info;
+    }
+}
@@ -0,0 +1,67 @@
+package com.iongroup.backend;
+
+import org.flowable.engine.delegate.DelegateExecution;
+import org.flowable.engine.delegate.JavaDelegate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delegates for engine tests and benchmarks, referenced by class name from
+ * generated service tasks.
+ */
+public final class TestDelegates {
+
+    private TestDelegates() {}
+
+    /**
+     * Sleeps for the "sleepMillis" process variable (default 50 ms) to stand in for a remote call.
+     */
+    public static class Sleeping implements JavaDelegate {
+        @Override
+        public void execute(DelegateExecution execution) {
+            Object sleepMillis = execution.getVariable("sleepMillis");
+            try {
+                Thread.sleep(sleepMillis instanceof Number ? ((Number) sleepMillis).longValue() : 50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            execution.setVariable(execution.getCurrentActivityId() + "Done", true);
+        }
+    }
+
+    /**
+     * Blocks until {@link #release()} is called, so a test can observe a running instance.
+     */
+    public static class Blocking implements JavaDelegate {
+        private static volatile CountDownLatch latch = new CountDownLatch(1);
+
+        public static void reset() {
+            latch = new CountDownLatch(1);
+        }
+
+        public static void release() {
+            latch.countDown();
+        }
+
+        @Override
+        public void execute(DelegateExecution execution) {
+            try {
+                latch.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            execution.setVariable("released", true);
+        }
+    }
+
+    /**
+     * Always throws, so async jobs end up in the dead letter table.
+     */
+    public static class Failing implements JavaDelegate {
+        @Override
+        public void execute(DelegateExecution execution) {
+            throw new IllegalStateException("Simulated delegate failure");
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.iongroup.backend.benchmark;
+
+import com.iongroup.backend.SampleFlows;
+import com.iongroup.backend.TestDelegates;
+import com.iongroup.backend.config.FlowExecutionProperties;
+import com.iongroup.backend.profiling.StageProfiler;
+import com.iongroup.backend.service.FlowableExecutionService;
+import org.flowable.bpmn.model.BpmnModel;
+import org.flowable.bpmn.model.ServiceTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request latency and throughput of sync vs async execution with N concurrent
+ * requests, each running a process of sleeping delegates that stand in for
+ * remote calls.
+ *
+ * <ul>
+ *   <li>sync: the request thread runs every delegate</li>
+ *   <li>async-await: delegates run on the async executor, the request waits for completion</li>
+ *   <li>async-return: delegates run on the async executor, the request returns RUNNING.
+ *       At most inFlight instances run at once: a request waits for a permit, which a
+ *       poller outside the benchmark threads releases when it sees the instance COMPLETED.
+ *       Throughput is therefore completed instances per second once the cap is reached,
+ *       not the rate at which instances can be started.</li>
+ * </ul>
+ *
+ * Run with: mvn -Pjmh -DskipTests verify -Djmh.includes=AsyncExecutionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(16)
+public class AsyncExecutionBenchmark {
+
+    private static final String PROCESS_KEY = "sleepingFlow";
+
+    @Param({"sync", "async-await", "async-return"})
+    public String mode;
+
+    @Param({"4"})
+    public int tasks;
+
+    @Param({"50"})
+    public int sleepMillis;
+
+    @Param({"64"})
+    public int inFlight;
+
+    private FlowableExecutionService service;
+    private byte[] bpmnXml;
+    private boolean async;
+    private String conversionKey;
+
+    // async-return only: started instances not yet seen completed, and permits for new ones
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    private Semaphore permits;
+    private Thread poller;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        async = !"sync".equals(mode);
+
+        FlowExecutionProperties properties = new FlowExecutionProperties();
+        properties.setAwaitCompletionMillis("async-await".equals(mode) ? 60_000 : 0);
+        properties.getAsyncExecutor().setDefaultAsyncJobAcquireWaitTimeMillis(100);
+        service = new FlowableExecutionService(properties);
+
+        BpmnModel model = SampleFlows.serviceTaskChain(PROCESS_KEY, tasks, TestDelegates.Sleeping.class.getName());
+        for (ServiceTask task : model.getMainProcess().findFlowElementsOfType(ServiceTask.class)) {
+            task.setAsynchronous(async);
+        }
+        bpmnXml = SampleFlows.toXml(model);
+        // Deploy once per trial, as repeated requests for the same graph do
+        conversionKey = mode + "-" + tasks;
+
+        if ("async-return".equals(mode)) {
+            permits = new Semaphore(inFlight);
+            poller = new Thread(this::pollRunning, "benchmark-completion-poller");
+            poller.setDaemon(true);
+            poller.start();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        if (poller != null) {
+            poller.interrupt();
+            poller.join();
+        }
+        service.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> execute() throws Exception {
+        if (permits == null) {
+            return service.execute(conversionKey, bpmnXml, PROCESS_KEY,
+                    Map.of("sleepMillis", sleepMillis), async, StageProfiler.DISABLED);
+        }
+
+        permits.acquire();
+        Map<String, Object> result = service.execute(conversionKey, bpmnXml, PROCESS_KEY,
+                Map.of("sleepMillis", sleepMillis), true, StageProfiler.DISABLED);
+        running.add((String) result.get("processInstanceId"));
+        return result;
+    }
+
+    /**
+     * Release a permit for every instance that finished since the last pass
+     */
+    private void pollRunning() {
+        while (!Thread.currentThread().isInterrupted()) {
+            for (String processInstanceId : running) {
+                Map<String, Object> result = service.getProcessInstanceResult(processInstanceId);
+                Object status = result != null ? result.get("status") : FlowableExecutionService.STATUS_FAILED;
+                if (!FlowableExecutionService.STATUS_RUNNING.equals(status) && running.remove(processInstanceId)) {
+                    permits.release();
+                }
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+}
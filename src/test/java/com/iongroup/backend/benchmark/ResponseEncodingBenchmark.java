@@ -0,0 +1,123 @@
+package com.iongroup.backend.benchmark;
+
+import com.iongroup.backend.SampleFlows;
+import com.iongroup.backend.TestDelegates;
+import com.iongroup.backend.model.FlowableConversionResponse;
+import org.flowable.bpmn.model.BpmnModel;
+import org.flowable.editor.language.json.converter.BpmnJsonConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Payload size and serialization time of convert-and-execute responses.
+ * "json/all" is the response before the fields selector and binary encodings;
+ * the other combinations are what clients can ask for now. Sizes are printed
+ * once per trial, times are reported by JMH.
+ *
+ * Run with: mvn -Pjmh -DskipTests verify -Djmh.includes=ResponseEncodingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseEncodingBenchmark {
+
+    @Param({"json", "json-gzip", "smile", "cbor"})
+    public String encoding;
+
+    @Param({"all", "executionResult"})
+    public String fields;
+
+    @Param({"10", "100"})
+    public int tasks;
+
+    private ObjectMapper mapper;
+    private boolean gzip;
+    private FlowableConversionResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        switch (encoding) {
+            case "smile" -> mapper = SmileMapper.builder().build();
+            case "cbor" -> mapper = CBORMapper.builder().build();
+            default -> mapper = JsonMapper.builder().build();
+        }
+        gzip = "json-gzip".equals(encoding);
+
+        BpmnModel model = SampleFlows.serviceTaskChain("encodingFlow", tasks, TestDelegates.Sleeping.class.getName());
+        // convertToJson needs positions and wired flows, which built models lack
+        SampleFlows.layOut(model);
+        response = new FlowableConversionResponse(
+                true,
+                "Successfully converted UI JSON to BPMN. Process executed successfully.",
+                new String(SampleFlows.toXml(model), StandardCharsets.UTF_8),
+                new BpmnJsonConverter().convertToJson(model),
+                executionResult(tasks));
+        if (!"all".equals(fields)) {
+            response.setIncludedFields(Set.of(fields));
+        }
+
+        System.out.printf("%n[payload] encoding=%s fields=%s tasks=%d bytes=%d%n",
+                encoding, fields, tasks, serialize().length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        byte[] encoded = mapper.writeValueAsBytes(response);
+        if (!gzip) {
+            return encoded;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(encoded.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(encoded);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Result shaped like FlowableExecutionService output for a process of n tasks
+     */
+    private static Map<String, Object> executionResult(int tasks) {
+        Map<String, Object> variables = new LinkedHashMap<>();
+        variables.put("initiator", "flowbox-ui");
+        for (int i = 1; i <= tasks; i++) {
+            variables.put("task" + i + "Done", true);
+            variables.put("task" + i + "Output", List.of("value-" + i, i, i * 1.5));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("processInstanceId", "12345");
+        result.put("status", "COMPLETED");
+        result.put("processVariables", variables);
+        result.put("deploymentId", "12340");
+        result.put("processKey", "encodingFlow");
+        result.put("executionMode", "sync");
+        return result;
+    }
+}
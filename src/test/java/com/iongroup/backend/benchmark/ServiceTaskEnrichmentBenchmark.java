@@ -0,0 +1,98 @@
+package com.iongroup.backend.benchmark;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.iongroup.backend.BaselineServiceTaskEnricher;
+import com.iongroup.backend.SampleFlows;
+import com.iongroup.backend.service.ServiceTaskEnrichmentService;
+import org.flowable.bpmn.converter.BpmnXMLConverter;
+import org.flowable.bpmn.model.BpmnModel;
+import org.flowable.bpmn.model.ServiceTask;
+import org.flowable.editor.language.json.converter.BpmnJsonConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and allocation of the conversion path before and after converter reuse and
+ * single-pass enrichment, for graphs of 10 to 1000 service tasks.
+ *
+ * <ul>
+ *   <li>enrich: enrichment of an already converted model only</li>
+ *   <li>convert: JSON to model, enrichment and XML write, as done per request</li>
+ * </ul>
+ *
+ * Run with -prof gc (the jmh profile does); bytes per node is
+ * gc.alloc.rate.norm divided by the nodes parameter.
+ * mvn -Pjmh -DskipTests verify -Djmh.includes=ServiceTaskEnrichmentBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceTaskEnrichmentBenchmark {
+
+    @Param({"baseline", "current"})
+    public String variant;
+
+    @Param({"10", "100", "1000"})
+    public int nodes;
+
+    private final ServiceTaskEnrichmentService enrichmentService = new ServiceTaskEnrichmentService();
+    private final BpmnJsonConverter jsonConverter = new BpmnJsonConverter();
+    private final BpmnXMLConverter xmlConverter = new BpmnXMLConverter();
+
+    private ObjectNode flowableJson;
+    private BpmnModel model;
+    private List<ServiceTask> serviceTasks;
+    private boolean baseline;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        baseline = "baseline".equals(variant);
+        flowableJson = SampleFlows.toFlowableJson(
+                SampleFlows.serviceTaskChain("enrichFlow", nodes, "com.example.Task"));
+        model = new BpmnJsonConverter().convertToBpmnModel(flowableJson);
+        serviceTasks = model.getMainProcess().findFlowElementsOfType(ServiceTask.class);
+    }
+
+    @Benchmark
+    public BpmnModel enrich() {
+        // Undo the previous invocation without allocating, so only enrichment is measured
+        for (ServiceTask task : serviceTasks) {
+            task.getExtensionElements().clear();
+        }
+        if (baseline) {
+            BaselineServiceTaskEnricher.enrich(model, flowableJson);
+        } else {
+            enrichmentService.enrich(model, flowableJson, false);
+        }
+        return model;
+    }
+
+    @Benchmark
+    public byte[] convert() {
+        if (baseline) {
+            // Fresh converters per request, as before
+            BpmnModel converted = new BpmnJsonConverter().convertToBpmnModel(flowableJson);
+            BaselineServiceTaskEnricher.enrich(converted, flowableJson);
+            return new BpmnXMLConverter().convertToXML(converted);
+        }
+        BpmnModel converted = jsonConverter.convertToBpmnModel(flowableJson);
+        enrichmentService.enrich(converted, flowableJson, false);
+        return xmlConverter.convertToXML(converted);
+    }
+}
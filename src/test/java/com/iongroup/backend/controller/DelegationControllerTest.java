@@ -0,0 +1,74 @@
+package com.iongroup.backend.controller;
+
+import com.iongroup.backend.config.RegistryConfiguration;
+import com.iongroup.backend.service.DelegationService;
+import com.iongroup.backend.service.OperationPlannerService;
+import com.iongroup.library.registry.OperationRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class DelegationControllerTest {
+
+    @Test
+    void planReturnsChainAndUiGraph() throws Exception {
+        mockMvc()
+                .perform(post("/api/delegations/plan")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"availableInputs\":[\"customerId\",\"loanType\"],"
+                                + "\"targetOutputs\":[\"loanOffer\"],\"includeUiGraph\":true}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.length()").value(4))
+                .andExpect(jsonPath("$.data[3].id").value("CreateLoanOffer"))
+                .andExpect(jsonPath("$.uiGraph.nodes.length()").value(6))
+                .andExpect(jsonPath("$.uiGraph.nodes[0].type").value("start"))
+                .andExpect(jsonPath("$.uiGraph.nodes[4].data.delegationId").value("CreateLoanOffer"))
+                .andExpect(jsonPath("$.uiGraph.edges.length()").value(5))
+                .andExpect(jsonPath("$.uiGraph.edges[4].target").value("end"));
+    }
+
+    @Test
+    void planWithoutUiGraphOmitsIt() throws Exception {
+        mockMvc()
+                .perform(post("/api/delegations/plan")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"availableInputs\":[\"customerId\",\"loanType\"],\"targetOutputs\":[\"loanOffer\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.uiGraph").doesNotExist());
+    }
+
+    @Test
+    void unresolvedPlanListsMissingInputs() throws Exception {
+        mockMvc()
+                .perform(post("/api/delegations/plan")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"availableInputs\":[\"customerId\"],\"targetOutputs\":[\"loanOffer\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.missingInputs[0]").value("loanType"));
+    }
+
+    @Test
+    void planRequiresTargetOutputs() throws Exception {
+        mockMvc()
+                .perform(post("/api/delegations/plan")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"availableInputs\":[\"customerId\"]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    private static MockMvc mockMvc() {
+        OperationRegistry registry = new RegistryConfiguration().operationRegistry();
+        DelegationController controller = new DelegationController(
+                new DelegationService(registry), new OperationPlannerService(registry));
+        return MockMvcBuilders.standaloneSetup(controller).build();
+    }
+}
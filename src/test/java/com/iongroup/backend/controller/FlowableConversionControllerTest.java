@@ -0,0 +1,142 @@
+package com.iongroup.backend.controller;
+
+import com.iongroup.backend.SampleFlows;
+import com.iongroup.backend.config.FlowExecutionProperties;
+import com.iongroup.backend.config.RegistryConfiguration;
+import com.iongroup.backend.model.ConversionCacheEntry;
+import com.iongroup.backend.service.ConversionCache;
+import com.iongroup.backend.service.FlowSimulationService;
+import com.iongroup.backend.service.FlowableExecutionService;
+import com.iongroup.backend.service.ServiceTaskEnrichmentService;
+import com.iongroup.backend.service.SimulationStub;
+import org.flowable.bpmn.model.BpmnModel;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class FlowableConversionControllerTest {
+
+    private static final String UI_GRAPH = "{\"nodes\":[],\"edges\":[]}";
+
+    @Test
+    void explainIsOmittedWhenNotRequested() throws Exception {
+        mockMvc(new CachedConversion())
+                .perform(post("/api/flowable/convert-and-execute")
+                        .param("fields", "bpmnXml")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(UI_GRAPH))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.bpmnXml").isString())
+                .andExpect(jsonPath("$.explain").doesNotExist());
+    }
+
+    @Test
+    void explainReportsStagesOnSuccess() throws Exception {
+        mockMvc(new CachedConversion())
+                .perform(post("/api/flowable/convert-and-execute")
+                        .param("fields", "bpmnXml")
+                        .param("explain", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(UI_GRAPH))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.explain.cacheHit").value(true))
+                .andExpect(jsonPath("$.explain.stages[0].stage").value("binding"))
+                .andExpect(jsonPath("$.explain.stages[1].stage").value("cacheLookup"))
+                .andExpect(jsonPath("$.explain.stages[2].stage").value("cacheDecode"))
+                .andExpect(jsonPath("$.explain.graph.serviceTasks").value(2));
+    }
+
+    @Test
+    void errorResponseCarriesPartialExplain() throws Exception {
+        mockMvc(new FailingCache())
+                .perform(post("/api/flowable/convert-and-execute")
+                        .param("explain", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(UI_GRAPH))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("Error: cache unavailable"))
+                .andExpect(content().string(containsString("\"bpmnXml\":null")))
+                .andExpect(jsonPath("$.explain.stages.length()").value(2))
+                .andExpect(jsonPath("$.explain.stages[0].stage").value("binding"))
+                .andExpect(jsonPath("$.explain.stages[1].stage").value("cacheLookup"));
+    }
+
+    @Test
+    void errorResponseHasNoExplainWhenNotRequested() throws Exception {
+        mockMvc(new FailingCache())
+                .perform(post("/api/flowable/convert-and-execute")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(UI_GRAPH))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.explain").doesNotExist());
+    }
+
+    private static MockMvc mockMvc(ConversionCache cache) {
+        FlowExecutionProperties properties = new FlowExecutionProperties();
+        FlowableConversionController controller = new FlowableConversionController(
+                new FlowSimulationService(new RegistryConfiguration().operationRegistry(),
+                        new DefaultListableBeanFactory().getBeanProvider(SimulationStub.class)),
+                new FlowableExecutionService(properties),
+                properties,
+                cache,
+                new ServiceTaskEnrichmentService());
+        return MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    /**
+     * Answers every lookup with the same conversion, so no converter runs
+     */
+    private static class CachedConversion implements ConversionCache {
+        private final ConversionCacheEntry entry;
+
+        CachedConversion() {
+            BpmnModel model = SampleFlows.serviceTaskChain("cachedFlow", 2, "com.example.Task");
+            entry = new ConversionCacheEntry("{}",
+                    new String(SampleFlows.toXml(model), StandardCharsets.UTF_8), "cachedFlow");
+        }
+
+        @Override
+        public ConversionCacheEntry get(String key) {
+            return entry;
+        }
+
+        @Override
+        public void put(String key, ConversionCacheEntry entry) {
+        }
+
+        @Override
+        public Map<String, Object> getStats() {
+            return Map.of();
+        }
+    }
+
+    private static class FailingCache implements ConversionCache {
+        @Override
+        public ConversionCacheEntry get(String key) {
+            throw new IllegalStateException("cache unavailable");
+        }
+
+        @Override
+        public void put(String key, ConversionCacheEntry entry) {
+        }
+
+        @Override
+        public Map<String, Object> getStats() {
+            return Map.of();
+        }
+    }
+}
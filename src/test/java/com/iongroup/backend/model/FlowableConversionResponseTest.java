@@ -0,0 +1,62 @@
+package com.iongroup.backend.model;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlowableConversionResponseTest {
+
+    private final JsonMapper mapper = JsonMapper.builder().build();
+
+    @Test
+    void errorResponseKeepsNullParts() {
+        JsonNode json = mapper.valueToTree(new FlowableConversionResponse(false, "Error: boom", null, null, null));
+
+        assertThat(json.get("success").asBoolean()).isFalse();
+        assertThat(json.has("bpmnXml")).isTrue();
+        assertThat(json.get("bpmnXml").isNull()).isTrue();
+        assertThat(json.get("flowableJson").isNull()).isTrue();
+        assertThat(json.get("executionResult").isNull()).isTrue();
+        assertThat(json.has("explain")).isFalse();
+    }
+
+    @Test
+    void failedExecutionKeepsNullExecutionResult() {
+        JsonNode json = mapper.valueToTree(new FlowableConversionResponse(true, "Note: failed", "<xml/>", null, null));
+
+        assertThat(json.get("bpmnXml").asText()).isEqualTo("<xml/>");
+        assertThat(json.has("executionResult")).isTrue();
+        assertThat(json.get("executionResult").isNull()).isTrue();
+    }
+
+    @Test
+    void onlySelectedPartsAreWritten() {
+        FlowableConversionResponse response = new FlowableConversionResponse(
+                true, "ok", null, null, Map.of("status", "COMPLETED"));
+        response.setIncludedFields(Set.of(FlowableConversionResponse.FIELD_EXECUTION_RESULT));
+
+        JsonNode json = mapper.valueToTree(response);
+
+        assertThat(json.has("bpmnXml")).isFalse();
+        assertThat(json.has("flowableJson")).isFalse();
+        assertThat(json.has("includedFields")).isFalse();
+        assertThat(json.has("selectedParts")).isFalse();
+        assertThat(json.get("executionResult").get("status").asText()).isEqualTo("COMPLETED");
+        assertThat(json.get("message").asText()).isEqualTo("ok");
+    }
+
+    @Test
+    void explainIsWrittenWhenSet() {
+        FlowableConversionResponse response = new FlowableConversionResponse(true, "ok", null, null, null);
+        response.setExplain(Map.of("totalWallMicros", 12L));
+
+        JsonNode json = mapper.valueToTree(response);
+
+        assertThat(json.get("explain").get("totalWallMicros").asLong()).isEqualTo(12L);
+    }
+}
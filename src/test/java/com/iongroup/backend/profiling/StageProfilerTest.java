@@ -0,0 +1,75 @@
+package com.iongroup.backend.profiling;
+
+import com.iongroup.backend.SampleFlows;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StageProfilerTest {
+
+    @Test
+    void recordsStagesInOrder() {
+        StageProfiler profiler = StageProfiler.create(true);
+
+        profiler.start("binding");
+        profiler.start("convert");
+        profiler.put("cacheHit", false);
+        profiler.start("xmlWrite");
+        Map<String, Object> report = profiler.toReport();
+
+        assertThat(stageNames(report)).containsExactly("binding", "convert", "xmlWrite");
+        assertThat(report).containsEntry("cacheHit", false);
+        for (Map<String, Object> stage : stages(report)) {
+            assertThat((Long) stage.get("wallMicros")).isGreaterThanOrEqualTo(0);
+            assertThat(stage).containsKeys("cpuMicros", "allocatedBytes");
+        }
+        assertThat(report).containsKeys("totalWallMicros", "totalAllocatedBytes");
+    }
+
+    @Test
+    void stopClosesCurrentStageOnce() {
+        StageProfiler profiler = StageProfiler.create(true);
+
+        profiler.start("deploy");
+        profiler.stop();
+        profiler.stop();
+
+        assertThat(stageNames(profiler.toReport())).containsExactly("deploy");
+    }
+
+    @Test
+    void recordsGraphStatistics() {
+        StageProfiler profiler = StageProfiler.create(true);
+
+        profiler.graphStatistics(SampleFlows.serviceTaskChain("stats", 3, "com.example.Task"));
+
+        assertThat(profiler.toReport().get("graph")).isEqualTo(Map.of(
+                "processes", 1, "nodes", 5, "edges", 4, "serviceTasks", 3));
+    }
+
+    @Test
+    void disabledProfilerRecordsNothing() {
+        StageProfiler profiler = StageProfiler.create(false);
+
+        profiler.start("binding");
+        profiler.put("cacheHit", true);
+        profiler.graphStatistics(SampleFlows.serviceTaskChain("stats", 1, "com.example.Task"));
+        profiler.stop();
+
+        assertThat(profiler).isSameAs(StageProfiler.DISABLED);
+        assertThat(profiler.isEnabled()).isFalse();
+        assertThat(profiler.toReport()).isNull();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> stages(Map<String, Object> report) {
+        return (List<Map<String, Object>>) report.get("stages");
+    }
+
+    private static List<Object> stageNames(Map<String, Object> report) {
+        return stages(report).stream().map(stage -> stage.get("stage")).toList();
+    }
+}
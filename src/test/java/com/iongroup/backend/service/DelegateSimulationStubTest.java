@@ -0,0 +1,47 @@
+package com.iongroup.backend.service;
+
+import com.iongroup.backend.TestDelegates;
+import com.iongroup.library.registry.DelegationType;
+import com.iongroup.library.registry.OperationDescriptor;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DelegateSimulationStubTest {
+
+    @Test
+    void returnsWhatTheDelegateSets() {
+        OperationDescriptor operation = operation("Sleep", TestDelegates.Sleeping.class);
+
+        Map<String, Object> outputs = new DelegateSimulationStub("Sleep").execute(operation, Map.of("sleepMillis", 0));
+
+        assertThat(outputs).containsExactly(Map.entry("SleepDone", true));
+    }
+
+    @Test
+    void delegateFailureFailsTheStep() {
+        OperationDescriptor operation = operation("Fail", TestDelegates.Failing.class);
+
+        assertThatThrownBy(() -> new DelegateSimulationStub("Fail").execute(operation, Map.of()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Simulated delegate failure");
+    }
+
+    @Test
+    void rejectsClassesThatAreNotDelegates() {
+        OperationDescriptor operation = operation("NotADelegate", String.class);
+
+        assertThatThrownBy(() -> new DelegateSimulationStub("NotADelegate").execute(operation, Map.of()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("is not a JavaDelegate");
+    }
+
+    private static OperationDescriptor operation(String id, Class<?> implementation) {
+        return new OperationDescriptor(id, id, List.of(), List.of(),
+                implementation.getName(), "test", DelegationType.SERVICE);
+    }
+}
@@ -0,0 +1,205 @@
+package com.iongroup.backend.service;
+
+import com.iongroup.backend.BackendApplication;
+import com.iongroup.backend.model.ConversionCacheEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Three backend instances on random ports sharing one hash ring.
+ */
+class DistributedConversionCacheClusterTest {
+
+    private static final String SECRET = "cluster-test-secret";
+
+    private String urlA;
+    private String urlB;
+    private String urlC;
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+    private ConfigurableApplicationContext nodeC;
+
+    @BeforeEach
+    void startNodes() throws IOException {
+        int portA = freePort();
+        int portB = freePort();
+        int portC = freePort();
+        urlA = "http://localhost:" + portA;
+        urlB = "http://localhost:" + portB;
+        urlC = "http://localhost:" + portC;
+        nodeA = start(portA, urlA);
+        nodeB = start(portB, urlB);
+        nodeC = start(portC, urlC);
+    }
+
+    @AfterEach
+    void stopNodes() {
+        for (ConfigurableApplicationContext node : List.of(nodeA, nodeB, nodeC)) {
+            if (node.isActive()) {
+                node.close();
+            }
+        }
+    }
+
+    @Test
+    void remoteHitFromOwner() {
+        DistributedConversionCache cacheA = nodeA.getBean(DistributedConversionCache.class);
+        DistributedConversionCache cacheB = nodeB.getBean(DistributedConversionCache.class);
+        String key = keyOwnedBy(urlB, "remote");
+
+        cacheB.put(key, entry("<definitions/>"));
+        ConversionCacheEntry fetched = cacheA.get(key);
+
+        assertThat(fetched).isNotNull();
+        assertThat(fetched.getBpmnXml()).isEqualTo("<definitions/>");
+        assertThat(fetched.getProcessKey()).isEqualTo("process");
+        assertThat(cacheA.getStats()).containsEntry("remoteHits", 1L).containsEntry("peerFailures", 0L);
+
+        // Served from A's copy from now on
+        assertThat(cacheA.get(key)).isNotNull();
+        assertThat(cacheA.getStats()).containsEntry("localHits", 1L).containsEntry("remoteHits", 1L);
+    }
+
+    @Test
+    void conversionOnNonOwnerIsPushedToOwner() throws InterruptedException {
+        DistributedConversionCache cacheA = nodeA.getBean(DistributedConversionCache.class);
+        DistributedConversionCache cacheB = nodeB.getBean(DistributedConversionCache.class);
+        DistributedConversionCache cacheC = nodeC.getBean(DistributedConversionCache.class);
+        String key = keyOwnedBy(urlB, "pushed");
+
+        // A converts a key B owns; the push to B happens off the calling thread
+        cacheA.put(key, entry("<definitions/>"));
+        awaitEntries(cacheB, 1);
+
+        ConversionCacheEntry fetched = cacheC.get(key);
+
+        assertThat(fetched).isNotNull();
+        assertThat(fetched.getBpmnXml()).isEqualTo("<definitions/>");
+        assertThat(cacheA.getStats()).containsEntry("pushes", 1L).containsEntry("peerFailures", 0L);
+        assertThat(cacheC.getStats()).containsEntry("remoteHits", 1L).containsEntry("misses", 0L);
+    }
+
+    @Test
+    void fallbackWhenPeerIsDown() {
+        DistributedConversionCache cacheA = nodeA.getBean(DistributedConversionCache.class);
+        String key = keyOwnedBy(urlB, "down");
+        nodeB.close();
+
+        assertThat(cacheA.get(key)).isNull();
+        assertThat(cacheA.getStats()).containsEntry("misses", 1L).containsEntry("peerFailures", 1L);
+
+        // B is backed off: neither the next lookup nor the push after converting calls it
+        assertThat(cacheA.get(key)).isNull();
+        cacheA.put(key, entry("<definitions/>"));
+        assertThat(cacheA.getStats())
+                .containsEntry("misses", 2L)
+                .containsEntry("peerFailures", 1L)
+                .containsEntry("skippedPeerCalls", 2L)
+                .containsEntry("pushes", 0L);
+    }
+
+    @Test
+    void peerCallsRequireSharedSecret() {
+        DistributedConversionCache cacheB = nodeB.getBean(DistributedConversionCache.class);
+        String key = keyOwnedBy(urlB, "secret");
+        cacheB.put(key, entry("<definitions/>"));
+        RestClient client = RestClient.create();
+
+        int withoutToken = client.get()
+                .uri(urlB + "/api/cache/conversions/{key}", key)
+                .exchange((request, response) -> response.getStatusCode().value());
+        int wrongToken = client.get()
+                .uri(urlB + "/api/cache/conversions/{key}", key)
+                .header(PeerConversionCache.PEER_TOKEN_HEADER, "wrong")
+                .exchange((request, response) -> response.getStatusCode().value());
+        ConversionCacheEntry served = client.get()
+                .uri(urlB + "/api/cache/conversions/{key}", key)
+                .header(PeerConversionCache.PEER_TOKEN_HEADER, SECRET)
+                .retrieve()
+                .body(ConversionCacheEntry.class);
+
+        assertThat(withoutToken).isEqualTo(403);
+        assertThat(wrongToken).isEqualTo(403);
+        assertThat(served.getKey()).isEqualTo(key);
+        assertThat(served.getSignature()).isNotBlank();
+    }
+
+    @Test
+    void peerPushRequiresSignedEntry() {
+        DistributedConversionCache cacheB = nodeB.getBean(DistributedConversionCache.class);
+        String key = keyOwnedBy(urlB, "forged");
+        RestClient client = RestClient.create();
+
+        ConversionCacheEntry unsigned = entry("<definitions/>");
+        unsigned.setKey(key);
+        unsigned.setSignature("00");
+        int withoutToken = put(client, key, null, unsigned);
+        int forged = put(client, key, SECRET, unsigned);
+
+        assertThat(withoutToken).isEqualTo(403);
+        assertThat(forged).isEqualTo(400);
+        assertThat(cacheB.getStats()).containsEntry("entries", 0);
+    }
+
+    private int put(RestClient client, String key, String token, ConversionCacheEntry entry) {
+        RestClient.RequestBodySpec request = client.put()
+                .uri(urlB + "/api/cache/conversions/{key}", key)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (token != null) {
+            request.header(PeerConversionCache.PEER_TOKEN_HEADER, token);
+        }
+        return request.body(entry).exchange((req, response) -> response.getStatusCode().value());
+    }
+
+    private ConfigurableApplicationContext start(int port, String selfUrl) {
+        return new SpringApplicationBuilder(BackendApplication.class)
+                .properties(
+                        "server.port=" + port,
+                        "flow.cache.self-url=" + selfUrl,
+                        "flow.cache.peers=" + urlA + "," + urlB + "," + urlC,
+                        "flow.cache.shared-secret=" + SECRET,
+                        "flow.cache.peer-timeout-millis=300",
+                        "flow.cache.peer-backoff-millis=60000")
+                .run();
+    }
+
+    private String keyOwnedBy(String node, String prefix) {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(urlA, urlB, urlC), 100);
+        for (int i = 0; ; i++) {
+            String key = prefix + "-" + i;
+            if (node.equals(ring.ownerOf(key))) {
+                return key;
+            }
+        }
+    }
+
+    private static void awaitEntries(DistributedConversionCache cache, int entries) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!Integer.valueOf(entries).equals(cache.getStats().get("entries"))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(cache.getStats()).containsEntry("entries", entries);
+    }
+
+    private static ConversionCacheEntry entry(String bpmnXml) {
+        return new ConversionCacheEntry("{}", bpmnXml, "process");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.iongroup.backend.service;
+
+import com.iongroup.backend.SampleFlows;
+import com.iongroup.backend.config.FlowExecutionProperties;
+import com.iongroup.backend.config.RegistryConfiguration;
+import com.iongroup.backend.config.SimulationStubConfiguration;
+import com.iongroup.backend.profiling.StageProfiler;
+import com.iongroup.library.registry.OperationRegistry;
+import org.flowable.bpmn.model.BpmnModel;
+import org.flowable.bpmn.model.ParallelGateway;
+import org.flowable.bpmn.model.Process;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.iongroup.backend.SampleFlows.add;
+import static com.iongroup.backend.SampleFlows.flow;
+import static com.iongroup.backend.SampleFlows.operation;
+import static com.iongroup.backend.SampleFlows.serviceTask;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlowSimulationServiceTest {
+
+    private static AnnotationConfigApplicationContext stubContext;
+    private static OperationRegistry registry;
+    private static FlowSimulationService simulationService;
+    private static FlowableExecutionService executionService;
+
+    @BeforeAll
+    static void setUp() {
+        stubContext = new AnnotationConfigApplicationContext(SimulationStubConfiguration.class);
+        registry = new RegistryConfiguration().operationRegistry();
+        simulationService = new FlowSimulationService(registry, stubContext.getBeanProvider(SimulationStub.class));
+        executionService = new FlowableExecutionService(new FlowExecutionProperties());
+    }
+
+    @AfterAll
+    static void tearDown() {
+        executionService.close();
+        stubContext.close();
+    }
+
+    @Test
+    void parallelJoinWaitsForAllBranches() {
+        // fork -> [StartLoanApplication -> EnterCustomerDetails -> EnterCustomerDetails -> CheckEligibility]
+        //      -> [GetLoanPolicy] -> join -> CreateLoanOffer
+        BpmnModel model = SampleFlows.newModel("parallelLoan");
+        Process process = model.getMainProcess();
+        add(process, gateway("fork"));
+        add(process, gateway("join"));
+        add(process, serviceTask("a1", operation(registry, "StartLoanApplication")));
+        add(process, serviceTask("a2", operation(registry, "EnterCustomerDetails")));
+        add(process, serviceTask("a3", operation(registry, "EnterCustomerDetails")));
+        add(process, serviceTask("a4", operation(registry, "CheckEligibility")));
+        add(process, serviceTask("b1", operation(registry, "GetLoanPolicy")));
+        add(process, serviceTask("offer", operation(registry, "CreateLoanOffer")));
+        add(process, flow("start", "fork"));
+        add(process, flow("fork", "a1"));
+        add(process, flow("a1", "a2"));
+        add(process, flow("a2", "a3"));
+        add(process, flow("a3", "a4"));
+        add(process, flow("a4", "join"));
+        add(process, flow("fork", "b1"));
+        add(process, flow("b1", "join"));
+        add(process, flow("join", "offer"));
+        add(process, flow("offer", "end"));
+
+        Map<String, Object> result = simulationService.simulate(model, initialVariables());
+
+        List<String> order = elementOrder(result);
+        assertThat(order.indexOf("join")).isGreaterThan(order.indexOf("a4")).isGreaterThan(order.indexOf("b1"));
+        assertThat(order.indexOf("offer")).isGreaterThan(order.indexOf("join"));
+        assertThat(order).containsOnlyOnce("join", "offer").endsWith("end");
+        assertThat(step(result, "offer").get("missingInputs")).asList().isEmpty();
+        assertThat(result).doesNotContainKey("waitingJoins");
+    }
+
+    @Test
+    void parallelJoinMissingBranchIsReported() {
+        // A branch that never reaches the join leaves it waiting, as the engine would
+        BpmnModel model = SampleFlows.newModel("stuckJoin");
+        Process process = model.getMainProcess();
+        add(process, gateway("join"));
+        add(process, serviceTask("orphan", operation(registry, "GetLoanPolicy")));
+        add(process, flow("start", "join"));
+        add(process, flow("orphan", "join"));
+        add(process, flow("join", "end"));
+
+        Map<String, Object> result = simulationService.simulate(model, initialVariables());
+
+        assertThat(result.get("waitingJoins")).asList().containsExactly("join");
+        assertThat(elementOrder(result)).containsExactly("start");
+    }
+
+    @Test
+    void loanFlowSimulationMatchesEngine() throws Exception {
+        assertSimulationMatchesEngine(SampleFlows.loanFlow(registry));
+    }
+
+    @Test
+    void cardFlowSimulationMatchesEngine() throws Exception {
+        assertSimulationMatchesEngine(SampleFlows.cardFlow(registry));
+    }
+
+    /**
+     * The registered stubs run the delegates themselves, so the simulated variables
+     * must equal what the engine recorded. The engine adds no variables of its own
+     * to these flows, so the maps are compared whole.
+     */
+    private void assertSimulationMatchesEngine(BpmnModel model) throws Exception {
+        String processKey = model.getMainProcess().getId();
+
+        Map<String, Object> simulated = simulationService.simulate(model, initialVariables());
+        Map<String, Object> executed = executionService.execute(null, SampleFlows.toXml(model), processKey,
+                initialVariables(), false, StageProfiler.DISABLED);
+
+        assertThat(executed.get("status")).isEqualTo(FlowableExecutionService.STATUS_COMPLETED);
+        for (Map<String, Object> step : trace(simulated)) {
+            if (step.containsKey("operationId")) {
+                assertThat(step.get("status")).isEqualTo("COMPLETED");
+                assertThat(step.get("missingInputs")).asList().isEmpty();
+                assertThat(step.get("outputs").toString()).doesNotContain(step.get("operationId") + ".");
+            }
+        }
+        assertThat(variables(simulated)).isEqualTo(variables(executed));
+    }
+
+    private static ParallelGateway gateway(String id) {
+        ParallelGateway gateway = new ParallelGateway();
+        gateway.setId(id);
+        return gateway;
+    }
+
+    private static Map<String, Object> initialVariables() {
+        return Map.of(
+                "initiator", "flowbox-ui",
+                "customerId", "C-1001",
+                "loanType", "HOME",
+                "customerSegment", "PREMIUM",
+                "cardType", "GOLD");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> trace(Map<String, Object> result) {
+        return (List<Map<String, Object>>) result.get("trace");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> variables(Map<String, Object> result) {
+        return (Map<String, Object>) result.get("processVariables");
+    }
+
+    private static List<String> elementOrder(Map<String, Object> result) {
+        List<String> order = new ArrayList<>();
+        for (Map<String, Object> step : trace(result)) {
+            order.add((String) step.get("elementId"));
+        }
+        return order;
+    }
+
+    private static Map<String, Object> step(Map<String, Object> result, String elementId) {
+        return trace(result).stream()
+                .filter(step -> elementId.equals(step.get("elementId")))
+                .findFirst()
+                .orElseThrow();
+    }
+}
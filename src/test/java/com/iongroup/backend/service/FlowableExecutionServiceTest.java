@@ -0,0 +1,141 @@
+package com.iongroup.backend.service;
+
+import com.iongroup.backend.SampleFlows;
+import com.iongroup.backend.TestDelegates;
+import com.iongroup.backend.config.FlowExecutionProperties;
+import com.iongroup.backend.profiling.StageProfiler;
+import org.flowable.bpmn.model.BpmnModel;
+import org.flowable.bpmn.model.ServiceTask;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlowableExecutionServiceTest {
+
+    private static FlowExecutionProperties properties;
+    private static FlowableExecutionService service;
+
+    @BeforeAll
+    static void setUp() {
+        properties = new FlowExecutionProperties();
+        properties.getAsyncExecutor().setDefaultAsyncJobAcquireWaitTimeMillis(100);
+        properties.getAsyncExecutor().setNumberOfRetries(1);
+        service = new FlowableExecutionService(properties);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        service.close();
+    }
+
+    @Test
+    void syncExecutionCompletes() throws Exception {
+        Map<String, Object> result = service.execute(null, xml("syncFlow", TestDelegates.Sleeping.class, false),
+                "syncFlow", Map.of("sleepMillis", 10), false, StageProfiler.DISABLED);
+
+        assertThat(result.get("status")).isEqualTo(FlowableExecutionService.STATUS_COMPLETED);
+        assertThat(result.get("executionMode")).isEqualTo("sync");
+        assertThat(variables(result)).containsEntry("task1Done", true).containsEntry("task2Done", true);
+    }
+
+    @Test
+    void asyncExecutionAwaitsCompletionListener() throws Exception {
+        properties.setAwaitCompletionMillis(10_000);
+        long start = System.nanoTime();
+        Map<String, Object> result = service.execute(null, xml("awaitFlow", TestDelegates.Sleeping.class, true),
+                "awaitFlow", Map.of("sleepMillis", 200), true, StageProfiler.DISABLED);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Completed through the listener well before the await timeout
+        assertThat(result.get("status")).isEqualTo(FlowableExecutionService.STATUS_COMPLETED);
+        assertThat(result.get("executionMode")).isEqualTo("async");
+        assertThat(variables(result)).containsEntry("task2Done", true);
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(400).isLessThan(10_000);
+    }
+
+    @Test
+    void asyncExecutionReturnsRunningThenCompletes() throws Exception {
+        properties.setAwaitCompletionMillis(0);
+        TestDelegates.Blocking.reset();
+        Map<String, Object> result = service.execute(null, xml("blockFlow", TestDelegates.Blocking.class, true),
+                "blockFlow", Map.of(), true, StageProfiler.DISABLED);
+        String processInstanceId = (String) result.get("processInstanceId");
+
+        assertThat(result.get("status")).isEqualTo(FlowableExecutionService.STATUS_RUNNING);
+        assertThat(variables(result)).doesNotContainKey("released");
+
+        TestDelegates.Blocking.release();
+        Map<String, Object> polled = poll(processInstanceId, FlowableExecutionService.STATUS_COMPLETED);
+        assertThat(variables(polled)).containsEntry("released", true);
+    }
+
+    @Test
+    void asyncExecutionFailsAfterRetries() throws Exception {
+        properties.setAwaitCompletionMillis(0);
+        Map<String, Object> result = service.execute(null, xml("failFlow", TestDelegates.Failing.class, true),
+                "failFlow", Map.of(), true, StageProfiler.DISABLED);
+
+        assertThat(result.get("status")).isIn(FlowableExecutionService.STATUS_RUNNING,
+                FlowableExecutionService.STATUS_FAILED);
+        poll((String) result.get("processInstanceId"), FlowableExecutionService.STATUS_FAILED);
+    }
+
+    @Test
+    void evictedDeploymentIsRedeployed() throws Exception {
+        FlowExecutionProperties single = new FlowExecutionProperties();
+        single.setMaxDeployments(1);
+        FlowableExecutionService singleDeployment = new FlowableExecutionService(single);
+        try {
+            byte[] first = xml("evictFirst", TestDelegates.Sleeping.class, false);
+            byte[] second = xml("evictSecond", TestDelegates.Sleeping.class, false);
+            Map<String, Object> variables = Map.of("sleepMillis", 0);
+
+            Object deployed = singleDeployment.execute("first", first, "evictFirst", variables, false,
+                    StageProfiler.DISABLED).get("deploymentId");
+            Object reused = singleDeployment.execute("first", first, "evictFirst", variables, false,
+                    StageProfiler.DISABLED).get("deploymentId");
+            singleDeployment.execute("second", second, "evictSecond", variables, false, StageProfiler.DISABLED);
+            Map<String, Object> redeployed = singleDeployment.execute("first", first, "evictFirst", variables,
+                    false, StageProfiler.DISABLED);
+
+            assertThat(reused).isEqualTo(deployed);
+            assertThat(redeployed.get("deploymentId")).isNotEqualTo(deployed);
+            assertThat(redeployed.get("status")).isEqualTo(FlowableExecutionService.STATUS_COMPLETED);
+        } finally {
+            singleDeployment.close();
+        }
+    }
+
+    @Test
+    void unknownInstanceHasNoResult() {
+        assertThat(service.getProcessInstanceResult("does-not-exist")).isNull();
+    }
+
+    private static byte[] xml(String processKey, Class<?> delegate, boolean async) {
+        BpmnModel model = SampleFlows.serviceTaskChain(processKey, 2, delegate.getName());
+        for (ServiceTask task : model.getMainProcess().findFlowElementsOfType(ServiceTask.class)) {
+            task.setAsynchronous(async);
+        }
+        return SampleFlows.toXml(model);
+    }
+
+    private static Map<String, Object> poll(String processInstanceId, String expectedStatus) throws InterruptedException {
+        Map<String, Object> result = service.getProcessInstanceResult(processInstanceId);
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (!expectedStatus.equals(result.get("status")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            result = service.getProcessInstanceResult(processInstanceId);
+        }
+        assertThat(result.get("status")).isEqualTo(expectedStatus);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> variables(Map<String, Object> result) {
+        return (Map<String, Object>) result.get("processVariables");
+    }
+}
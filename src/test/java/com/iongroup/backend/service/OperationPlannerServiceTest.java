@@ -0,0 +1,160 @@
+package com.iongroup.backend.service;
+
+import com.example.flow.UiToFlowableConverter;
+import com.example.flow.UiToFlowableConverter.ConverterConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.iongroup.backend.config.RegistryConfiguration;
+import com.iongroup.backend.model.OperationPlan;
+import com.iongroup.library.registry.DefaultOperationRegistry;
+import com.iongroup.library.registry.DelegationType;
+import com.iongroup.library.registry.OperationDescriptor;
+import com.iongroup.library.registry.OperationRegistry;
+import org.flowable.bpmn.model.BpmnModel;
+import org.flowable.bpmn.model.ExtensionElement;
+import org.flowable.bpmn.model.FlowElement;
+import org.flowable.bpmn.model.Process;
+import org.flowable.bpmn.model.SequenceFlow;
+import org.flowable.bpmn.model.ServiceTask;
+import org.flowable.bpmn.model.StartEvent;
+import org.flowable.editor.language.json.converter.BpmnJsonConverter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OperationPlannerServiceTest {
+
+    @Test
+    void plansLoanOfferFromCustomerIdAndLoanType() {
+        OperationPlannerService planner = new OperationPlannerService(new RegistryConfiguration().operationRegistry());
+
+        OperationPlan plan = planner.plan(List.of("customerId", "loanType"), List.of("loanOffer"));
+
+        assertThat(plan.isResolved()).isTrue();
+        assertThat(ids(plan)).containsExactly(
+                "GetLoanPolicy", "StartLoanApplication", "CheckEligibility", "CreateLoanOffer");
+        assertThat(plan.getMissingInputs()).isEmpty();
+    }
+
+    @Test
+    void reportsLoanTypeMissingFromCustomerIdAlone() {
+        OperationPlannerService planner = new OperationPlannerService(new RegistryConfiguration().operationRegistry());
+
+        OperationPlan plan = planner.plan(List.of("customerId"), List.of("loanOffer"));
+
+        assertThat(plan.isResolved()).isFalse();
+        assertThat(plan.getOperations()).isEmpty();
+        assertThat(plan.getMissingInputs()).containsExactly("loanType");
+    }
+
+    @Test
+    void prefersFewerStepsOverFewerOperations() {
+        DefaultOperationRegistry registry = new DefaultOperationRegistry();
+        registry.register(operation("Prepare", List.of("x"), List.of("m")));
+        registry.register(operation("ProduceAll", List.of("m"), List.of("p", "q", "r")));
+        registry.register(operation("ProduceP", List.of("x"), List.of("p")));
+        registry.register(operation("ProduceQ", List.of("x"), List.of("q")));
+        registry.register(operation("ProduceR", List.of("x"), List.of("r")));
+        OperationPlannerService planner = new OperationPlannerService(registry);
+
+        OperationPlan plan = planner.plan(List.of("x"), List.of("p", "q", "r"));
+
+        // One step with three operations beats two steps with two operations
+        assertThat(ids(plan)).containsExactly("ProduceP", "ProduceQ", "ProduceR");
+    }
+
+    @Test
+    void dropsOperationsMadeRedundantAtTheSameDepth() {
+        DefaultOperationRegistry registry = new DefaultOperationRegistry();
+        registry.register(operation("ProduceY", List.of("x"), List.of("y")));
+        registry.register(operation("ProduceYZ", List.of("x"), List.of("y", "z")));
+        OperationPlannerService planner = new OperationPlannerService(registry);
+
+        OperationPlan plan = planner.plan(List.of("x"), List.of("y", "z"));
+
+        assertThat(ids(plan)).containsExactly("ProduceYZ");
+    }
+
+    @Test
+    void memoizesUntilRegistryChanges() {
+        OperationRegistry registry = new RegistryConfiguration().operationRegistry();
+        OperationPlannerService planner = new OperationPlannerService(registry);
+
+        OperationPlan first = planner.plan(List.of("customerId"), List.of("loanOffer"));
+        assertThat(planner.plan(List.of("customerId"), List.of("loanOffer"))).isSameAs(first);
+
+        registry.register(operation("QuickLoanOffer", List.of("customerId"), List.of("loanOffer")));
+        OperationPlan replanned = planner.plan(List.of("customerId"), List.of("loanOffer"));
+
+        assertThat(replanned).isNotSameAs(first);
+        assertThat(replanned.isResolved()).isTrue();
+        assertThat(ids(replanned)).containsExactly("QuickLoanOffer");
+    }
+
+    @Test
+    void invalidateDropsMemoizedPlans() {
+        OperationPlannerService planner = new OperationPlannerService(new RegistryConfiguration().operationRegistry());
+
+        OperationPlan first = planner.plan(List.of("customerId", "loanType"), List.of("loanOffer"));
+        planner.invalidate();
+
+        assertThat(planner.plan(List.of("customerId", "loanType"), List.of("loanOffer")))
+                .isNotSameAs(first)
+                .satisfies(plan -> assertThat(ids(plan)).isEqualTo(ids(first)));
+    }
+
+    @Test
+    void uiGraphConvertsToTasksCarryingDelegationIds() {
+        OperationPlannerService planner = new OperationPlannerService(new RegistryConfiguration().operationRegistry());
+        OperationPlan plan = planner.plan(List.of("customerId", "loanType"), List.of("loanOffer"));
+
+        // The same path a planned graph takes through the convert endpoint
+        ObjectNode uiJson = new ObjectMapper().valueToTree(planner.toUiGraph(plan));
+        ObjectNode flowableJson = UiToFlowableConverter.convert(uiJson, ConverterConfig.defaultConfig());
+        BpmnModel model = new BpmnJsonConverter().convertToBpmnModel(flowableJson);
+        new ServiceTaskEnrichmentService().enrich(model, flowableJson, false);
+
+        List<String> delegationIds = new ArrayList<>();
+        for (ServiceTask task : chain(model.getMainProcess())) {
+            List<ExtensionElement> delegationId = task.getExtensionElements().get("delegationId");
+            assertThat(delegationId).as("delegationId of %s", task.getId()).hasSize(1);
+            delegationIds.add(delegationId.get(0).getElementText());
+        }
+        assertThat(delegationIds).isEqualTo(ids(plan));
+    }
+
+    /**
+     * Service tasks in sequence-flow order from the start event
+     */
+    private static List<ServiceTask> chain(Process process) {
+        List<ServiceTask> tasks = new ArrayList<>();
+        String current = process.findFlowElementsOfType(StartEvent.class).get(0).getId();
+        while (current != null) {
+            String next = null;
+            for (SequenceFlow flow : process.findFlowElementsOfType(SequenceFlow.class)) {
+                if (current.equals(flow.getSourceRef())) {
+                    next = flow.getTargetRef();
+                    break;
+                }
+            }
+            FlowElement element = next != null ? process.getFlowElement(next) : null;
+            if (element instanceof ServiceTask) {
+                tasks.add((ServiceTask) element);
+            }
+            current = next;
+        }
+        return tasks;
+    }
+
+    private static OperationDescriptor operation(String id, List<String> inputs, List<String> outputs) {
+        return new OperationDescriptor(id, id, inputs, outputs,
+                "com.example." + id + "Task", "test", DelegationType.SERVICE);
+    }
+
+    private static List<String> ids(OperationPlan plan) {
+        return plan.getOperations().stream().map(OperationDescriptor::getId).toList();
+    }
+}
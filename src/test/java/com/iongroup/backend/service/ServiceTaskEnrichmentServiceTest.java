@@ -0,0 +1,110 @@
+package com.iongroup.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.iongroup.backend.BaselineServiceTaskEnricher;
+import com.iongroup.backend.SampleFlows;
+import com.iongroup.backend.config.RegistryConfiguration;
+import org.flowable.bpmn.converter.BpmnXMLConverter;
+import org.flowable.bpmn.model.BpmnModel;
+import org.flowable.bpmn.model.ServiceTask;
+import org.flowable.bpmn.model.SubProcess;
+import org.flowable.editor.language.json.converter.BpmnJsonConverter;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServiceTaskEnrichmentServiceTest {
+
+    private final ServiceTaskEnrichmentService enrichmentService = new ServiceTaskEnrichmentService();
+
+    @Test
+    void loanFlowXmlMatchesBaseline() {
+        assertXmlMatchesBaseline(SampleFlows.toFlowableJson(
+                SampleFlows.loanFlow(new RegistryConfiguration().operationRegistry())));
+    }
+
+    @Test
+    void largeFlowXmlMatchesBaseline() {
+        assertXmlMatchesBaseline(SampleFlows.toFlowableJson(
+                SampleFlows.serviceTaskChain("largeFlow", 200, "com.example.Task")));
+    }
+
+    @Test
+    void addsExtensionElementsFromShapeProperties() {
+        ObjectNode json = SampleFlows.toFlowableJson(
+                SampleFlows.cardFlow(new RegistryConfiguration().operationRegistry()));
+        BpmnModel model = new BpmnJsonConverter().convertToBpmnModel(json);
+
+        enrichmentService.enrich(model, json, false);
+
+        for (ServiceTask task : model.getMainProcess().findFlowElementsOfType(ServiceTask.class)) {
+            assertThat(task.getExtensionElements().get("delegationId").get(0).getElementText())
+                    .isEqualTo(task.getName());
+            assertThat(task.getExtensionElements()).containsOnlyKeys(
+                    "delegationId", "delegationType", "selectedFields", "requiredFields");
+            assertThat(task.isAsynchronous()).isFalse();
+        }
+    }
+
+    @Test
+    void asyncMarksEveryServiceTask() {
+        ObjectNode json = SampleFlows.toFlowableJson(SampleFlows.serviceTaskChain("asyncFlow", 3, "com.example.Task"));
+        BpmnModel model = new BpmnJsonConverter().convertToBpmnModel(json);
+
+        enrichmentService.enrich(model, json, true);
+
+        assertThat(model.getMainProcess().findFlowElementsOfType(ServiceTask.class))
+                .hasSize(3)
+                .allMatch(ServiceTask::isAsynchronous);
+    }
+
+    @Test
+    void skipsServiceTasksNestedInSubProcesses() {
+        BpmnModel model = SampleFlows.newModel("nestedFlow");
+        SubProcess subProcess = new SubProcess();
+        subProcess.setId("sub");
+        ServiceTask nested = new ServiceTask();
+        nested.setId("nestedTask");
+        subProcess.addFlowElement(nested);
+        SampleFlows.add(model.getMainProcess(), subProcess);
+
+        ObjectNode json = new ObjectMapper().createObjectNode();
+        ObjectNode shape = json.putArray("childShapes").addObject();
+        shape.put("resourceId", "nestedTask");
+        shape.putObject("properties").put("delegationId", "CheckEligibility");
+
+        enrichmentService.enrich(model, json, false);
+
+        // As before, only top-level service tasks are enriched
+        assertThat(nested.getExtensionElements()).isEmpty();
+    }
+
+    @Test
+    void asyncMarksServiceTasksNestedInSubProcesses() {
+        BpmnModel model = SampleFlows.newModel("nestedAsyncFlow");
+        SubProcess subProcess = new SubProcess();
+        subProcess.setId("sub");
+        ServiceTask nested = new ServiceTask();
+        nested.setId("nestedTask");
+        subProcess.addFlowElement(nested);
+        SampleFlows.add(model.getMainProcess(), subProcess);
+
+        enrichmentService.enrich(model, new ObjectMapper().createObjectNode(), true);
+
+        assertThat(nested.isAsynchronous()).isTrue();
+    }
+
+    private void assertXmlMatchesBaseline(ObjectNode json) {
+        BpmnModel baseline = new BpmnJsonConverter().convertToBpmnModel(json);
+        BaselineServiceTaskEnricher.enrich(baseline, json);
+        BpmnModel enriched = new BpmnJsonConverter().convertToBpmnModel(json);
+        enrichmentService.enrich(enriched, json, false);
+
+        String baselineXml = new String(new BpmnXMLConverter().convertToXML(baseline), StandardCharsets.UTF_8);
+        String enrichedXml = new String(new BpmnXMLConverter().convertToXML(enriched), StandardCharsets.UTF_8);
+
+        assertThat(enrichedXml).contains("flowable:delegationId").isEqualTo(baselineXml);
+    }
+}